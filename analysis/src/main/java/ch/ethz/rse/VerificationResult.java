@@ -23,6 +23,20 @@ public class VerificationResult {
 
 	// UTILITY
 
+	/**
+	 * 
+	 * @param s {@link Constants#safe} or {@link Constants#unsafe}
+	 * @return true if <code>s</code> describes a safe result
+	 */
+	public static boolean parse(String s) {
+		if (s.equals(Constants.safe)) {
+			return true;
+		} else if (s.equals(Constants.unsafe)) {
+			return false;
+		}
+		throw new IllegalArgumentException("Not a verification result: " + s);
+	}
+
 	/**
 	 * 
 	 * @param expected
@@ -0,0 +1,87 @@
+package ch.ethz.rse.main;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.VerificationTask;
+import ch.ethz.rse.numerical.NumericalDomain;
+import org.apache.commons.cli.*;
+
+/**
+ * Entry point for verifying several properties of a given program in one
+ * analysis pass.
+ * 
+ * Run as: <code>-n ch.ethz.rse.integration.tests.Basic_Test_Safe -p
+ * NON_NEGATIVE,FITS_IN_TROLLEY -a BOX,POLKA_STRICT</code>. Without
+ * <code>-p</code>, all properties are verified. Without <code>-a</code>, the
+ * configured numerical domains are used.
+ */
+public class AuditMain {
+
+	public static void main(String[] args) throws ParseException {
+		// prepare parser
+		Options options = new Options();
+		// parse package name
+		Option packageNameOption = new Option("n", "packageName", true, "Fully qualified name of class to check");
+		packageNameOption.setRequired(true);
+		options.addOption(packageNameOption);
+		// parse properties to verify
+		Option propertyOption = new Option("p", "property", true,
+				"Properties to check, comma-separated or repeated (default: all)");
+		options.addOption(propertyOption);
+		// parse numerical domains
+		Option domainOption = new Option("a", "domain", true,
+				"Numerical domains, comma-separated from cheapest to most precise (default: POLKA_STRICT)");
+		options.addOption(domainOption);
+		// build parser
+		CommandLineParser parser = new DefaultParser();
+		CommandLine cmd = parser.parse(options, args);
+
+		if (cmd.hasOption("a")) {
+			// validate early, the analysis reads the setting from Configuration
+			NumericalDomain.parseList(cmd.getOptionValue("a"));
+			System.setProperty("NUMERICAL_DOMAIN", cmd.getOptionValue("a"));
+		}
+
+		// prepare task
+		String packageName = cmd.getOptionValue("n");
+		Set<VerificationProperty> properties = AuditMain.parseProperties(cmd.getOptionValues("p"));
+		VerificationTask t = new VerificationTask(packageName, properties.iterator().next());
+
+		// run verification
+		Map<VerificationProperty, VerificationResult> results = Runner.verify(t.getTestClass(), properties);
+		System.out.flush();
+		System.err.flush();
+		for (Map.Entry<VerificationProperty, VerificationResult> e : results.entrySet()) {
+			System.out.println("FINAL OUTPUT:" + e.getKey() + " " + e.getValue().toString());
+		}
+	}
+
+	/**
+	 * 
+	 * @param values values of the property option, each possibly
+	 *               comma-separated (may be null)
+	 * @return the referenced properties, or all properties if none are given
+	 */
+	static Set<VerificationProperty> parseProperties(String[] values) {
+		if (values == null) {
+			return EnumSet.allOf(VerificationProperty.class);
+		}
+		Set<VerificationProperty> properties = EnumSet.noneOf(VerificationProperty.class);
+		for (String value : values) {
+			for (String p : value.split(",")) {
+				if (!p.trim().isEmpty()) {
+					properties.add(VerificationProperty.valueOf(p.trim()));
+				}
+			}
+		}
+		if (properties.isEmpty()) {
+			return EnumSet.allOf(VerificationProperty.class);
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,45 @@
+package ch.ethz.rse.main;
+
+import java.io.File;
+
+import ch.ethz.rse.utils.Configuration;
+import org.apache.commons.cli.*;
+
+/**
+ * Entry point for verifying many tasks at once, see {@link BatchRunner}
+ */
+public class BatchMain {
+
+	public static void main(String[] args) throws ParseException {
+		// prepare parser
+		Options options = new Options();
+		Option csvOption = new Option("c", "csv", true, "CSV file of tasks (packageName,property[,expected])");
+		options.addOption(csvOption);
+		Option packageOption = new Option("d", "package", true, "Package whose compiled classes to verify");
+		options.addOption(packageOption);
+		Option outputOption = new Option("o", "output", true, "Result file (default: results/batch-results.csv)");
+		options.addOption(outputOption);
+		Option threadsOption = new Option("t", "threads", true, "Number of classes verified concurrently");
+		options.addOption(threadsOption);
+		// build parser
+		CommandLineParser parser = new DefaultParser();
+		CommandLine cmd = parser.parse(options, args);
+
+		BatchRunner runner;
+		if (cmd.hasOption("c")) {
+			runner = BatchRunner.fromCsv(new File(cmd.getOptionValue("c")));
+		} else if (cmd.hasOption("d")) {
+			runner = BatchRunner.fromPackage(cmd.getOptionValue("d"));
+		} else {
+			throw new ParseException("Either --csv or --package is required");
+		}
+
+		String defaultOutput = Configuration.props.getBasedir() + "/results/batch-results.csv";
+		File output = new File(cmd.getOptionValue("o", defaultOutput));
+		int threads = cmd.hasOption("t") ? Integer.parseInt(cmd.getOptionValue("t"))
+				: Configuration.props.getBatchThreads();
+
+		runner.run(threads, output);
+	}
+
+}
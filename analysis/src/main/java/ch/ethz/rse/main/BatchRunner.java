@@ -0,0 +1,221 @@
+package ch.ethz.rse.main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.VerificationTask;
+import ch.ethz.rse.utils.Configuration;
+import ch.ethz.rse.utils.FileUtilsWrapper;
+import soot.SootHelper;
+
+/**
+ * Verifies many tasks at once. Tasks on the same class are grouped, so that
+ * each class is loaded and points-to analyzed only once, and groups are
+ * verified concurrently.
+ */
+public class BatchRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+	/**
+	 * Header of the result file written by {@link #run(int, File)}
+	 */
+	public static final String HEADER = "packageName,property,expected,result,comparison,classMilliseconds";
+
+	/**
+	 * Properties to verify, grouped by fully qualified class name
+	 */
+	private final Map<String, Set<VerificationProperty>> groups = new LinkedHashMap<String, Set<VerificationProperty>>();
+
+	/**
+	 * Expected results (if known), grouped by fully qualified class name
+	 */
+	private final Map<String, Map<VerificationProperty, VerificationResult>> expected = new LinkedHashMap<String, Map<VerificationProperty, VerificationResult>>();
+
+	// CONSTRUCTION
+
+	/**
+	 * 
+	 * @param packageName fully qualified name of class to check
+	 * @param property    property to check
+	 * @param expected    expected result, or null if unknown
+	 */
+	public void addTask(String packageName, VerificationProperty property, VerificationResult expected) {
+		if (!this.groups.containsKey(packageName)) {
+			this.groups.put(packageName, EnumSet.noneOf(VerificationProperty.class));
+			this.expected.put(packageName, new EnumMap<VerificationProperty, VerificationResult>(VerificationProperty.class));
+		}
+		this.groups.get(packageName).add(property);
+		if (expected != null) {
+			this.expected.get(packageName).put(property, expected);
+		}
+	}
+
+	/**
+	 * 
+	 * @param csv file in the format written by
+	 *            {@link ch.ethz.rse.testing.VerificationTestCaseCollector}
+	 *            (<code>packageName,property[,expected]</code>, with header)
+	 * @return a runner for all tasks in <code>csv</code>
+	 */
+	public static BatchRunner fromCsv(File csv) {
+		BatchRunner runner = new BatchRunner();
+		List<String> lines = FileUtilsWrapper.readFileInList(csv.getPath());
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || (i == 0 && line.startsWith("packageName"))) {
+				continue;
+			}
+			String[] cells = line.split(",");
+			VerificationProperty property = VerificationProperty.valueOf(cells[1].trim());
+			VerificationResult expected = null;
+			if (cells.length > 2 && !cells[2].trim().isEmpty()) {
+				expected = new VerificationResult(VerificationResult.parse(cells[2].trim()));
+			}
+			runner.addTask(cells[0].trim(), property, expected);
+		}
+		return runner;
+	}
+
+	/**
+	 * 
+	 * @param packageName package whose compiled classes (in
+	 *                    <code>target/test-classes</code>) to verify
+	 * @return a runner checking all properties for each top-level class in
+	 *         <code>packageName</code>
+	 */
+	public static BatchRunner fromPackage(String packageName) {
+		File dir = new File(Configuration.props.getBasedir() + "/target/test-classes/" + packageName.replace(".", "/"));
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new RuntimeException("No compiled classes in " + dir + ". Did you run `mvn test-compile`?");
+		}
+		Arrays.sort(files);
+
+		BatchRunner runner = new BatchRunner();
+		for (File f : files) {
+			if (!f.getName().endsWith(".class") || f.getName().contains("$")) {
+				// skip non-classes and nested classes
+				continue;
+			}
+			String className = packageName + "." + FilenameUtils.removeExtension(f.getName());
+			for (VerificationProperty p : VerificationProperty.values()) {
+				runner.addTask(className, p, null);
+			}
+		}
+		return runner;
+	}
+
+	// RUNNING
+
+	/**
+	 * 
+	 * @return number of classes to verify
+	 */
+	public int getClassCount() {
+		return this.groups.size();
+	}
+
+	/**
+	 * Verify all tasks and write one line per task to <code>output</code>
+	 * 
+	 * @param threads number of classes to verify concurrently
+	 * @param output  file to write results to (see {@link #HEADER})
+	 */
+	public void run(int threads, File output) {
+		List<String> lines = this.run(threads);
+		StringBuilder sb = new StringBuilder(HEADER).append('\n');
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+		FileUtilsWrapper.writeStringToFile(output, sb.toString());
+		logger.info("Wrote {} results to {}", lines.size(), output);
+	}
+
+	/**
+	 * 
+	 * @param threads number of classes to verify concurrently
+	 * @return one result line per task (see {@link #HEADER})
+	 */
+	public List<String> run(int threads) {
+		threads = Math.max(1, Math.min(threads, this.groups.size()));
+		if (threads > 1) {
+			SootHelper.useThreadLocalScenes();
+		}
+		logger.info("Verifying {} classes on {} threads", this.groups.size(), threads);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+			for (final String packageName : this.groups.keySet()) {
+				futures.add(pool.submit(new Callable<List<String>>() {
+					@Override
+					public List<String> call() {
+						return verifyClass(packageName);
+					}
+				}));
+			}
+			List<String> lines = new ArrayList<String>();
+			for (Future<List<String>> f : futures) {
+				lines.addAll(f.get());
+			}
+			return lines;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * 
+	 * @param packageName fully qualified name of class to check
+	 * @return one result line per task on <code>packageName</code>
+	 */
+	private List<String> verifyClass(String packageName) {
+		Set<VerificationProperty> properties = this.groups.get(packageName);
+		Map<VerificationProperty, VerificationResult> expected = this.expected.get(packageName);
+
+		long startTime = System.nanoTime();
+		Map<VerificationProperty, VerificationResult> results;
+		try {
+			VerificationTask t = new VerificationTask(packageName, properties.iterator().next());
+			results = Runner.verify(t.getTestClass(), properties);
+		} catch (RuntimeException e) {
+			logger.error("Failed to verify {}", packageName, e);
+			results = null;
+		}
+		long durationMilliseconds = (System.nanoTime() - startTime) / 1000000;
+
+		List<String> lines = new ArrayList<String>();
+		for (VerificationProperty p : properties) {
+			VerificationResult exp = expected.get(p);
+			VerificationResult actual = results == null ? null : results.get(p);
+			String comparison = (exp == null || actual == null) ? "" : actual.compare(exp);
+			lines.add(String.join(",", packageName, p.toString(), exp == null ? "" : exp.toString(),
+					actual == null ? "ERROR" : actual.toString(), comparison, Long.toString(durationMilliseconds)));
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,355 @@
+package ch.ethz.rse.main;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.utils.Configuration;
+import ch.ethz.rse.verify.ClassToVerify;
+
+/**
+ * Content-addressed cache of verification results, keyed by the SHA-256 hash
+ * of the class file, the {@link VerificationProperty} and the analyzer
+ * version.
+ *
+ * The cache is persisted as an append-only binary index of fixed-size records
+ * (see {@link #RECORD_SIZE}), read once into memory on first use. Records of
+ * other analyzer versions are skipped when reading, and a later record for the
+ * same key overrides an earlier one. Appends hold a file lock, and a partial
+ * record at the end of the index (e.g., after a crash) is dropped.
+ */
+public class ResultCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+	/**
+	 * Hash of the compiled analyzer, see {@link #getCodeHash()} (null until
+	 * first use)
+	 */
+	private static String codeHash = null;
+
+	/**
+	 * Identifies index files (and their format version)
+	 */
+	private static final int MAGIC = 0x52534501;
+
+	private static final int HASH_SIZE = 32;
+
+	/**
+	 * Class hash, property ordinal, analyzer version, verdict
+	 */
+	static final int RECORD_SIZE = HASH_SIZE + 1 + 8 + 1;
+
+	private static ResultCache defaultCache;
+
+	private static ResultCache methodDefaultCache;
+
+	private final File index;
+
+	/**
+	 * Fingerprint of the analyzer, see {@link #getAnalyzerVersion()}. Stored
+	 * with each record.
+	 */
+	private final long analyzerVersion;
+
+	/**
+	 * Cached results, keyed by {@link #getKey(String, VerificationProperty)}
+	 */
+	private Map<String, Boolean> results = null;
+
+	/**
+	 *
+	 * @param index file holding the binary index (created on first store)
+	 */
+	public ResultCache(File index) {
+		this.index = index;
+		this.analyzerVersion = ResultCache.getAnalyzerVersion();
+	}
+
+	/**
+	 *
+	 * @return the cache under <code>target/result-cache</code> of the project
+	 */
+	public static synchronized ResultCache getDefault() {
+		if (defaultCache == null) {
+			defaultCache = new ResultCache(
+					new File(Configuration.props.getBasedir() + "/target/result-cache/results.idx"));
+		}
+		return defaultCache;
+	}
+
+	/**
+	 *
+	 * @return the cache of per-method verdicts under
+	 *         <code>target/result-cache</code>, keyed by method fingerprint (see
+	 *         {@link ch.ethz.rse.verify.MethodFingerprint})
+	 */
+	public static synchronized ResultCache getMethodDefault() {
+		if (methodDefaultCache == null) {
+			methodDefaultCache = new ResultCache(
+					new File(Configuration.props.getBasedir() + "/target/result-cache/methods.idx"));
+		}
+		return methodDefaultCache;
+	}
+
+	/**
+	 *
+	 * @return a fingerprint of the analyzer: {@link #getCodeHash()} together
+	 *         with any setting that may alter verdicts
+	 */
+	static long getAnalyzerVersion() {
+		String version = ResultCache.getCodeHash() + ":" + Configuration.props.getNumericalDomains() + ":"
+				+ Configuration.props.useVariablePacking() + ":" + Configuration.props.forgetDeadLocals() + ":"
+				+ Configuration.props.useWtoIteration() + ":" + Configuration.props.getWideningDelay() + ":"
+				+ Configuration.props.useThresholdWidening() + ":" + Configuration.props.getNarrowingPasses();
+		long h = 1125899906842597L;
+		for (int i = 0; i < version.length(); i++) {
+			h = 31 * h + version.charAt(i);
+		}
+		return h;
+	}
+
+	/**
+	 * The version of the analysis is derived from its code, so that any change
+	 * invalidates previously cached results without a manual version bump
+	 *
+	 * @return SHA-256 hash of the class files of the analyzer (the directory or
+	 *         jar holding this class), or a random value if they cannot be read
+	 *         (so that results are only reused within this process)
+	 */
+	static synchronized String getCodeHash() {
+		if (codeHash != null) {
+			return codeHash;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			CodeSource source = ResultCache.class.getProtectionDomain().getCodeSource();
+			if (source == null) {
+				throw new IOException("Unknown location of the analyzer");
+			}
+			File location = new File(source.getLocation().toURI());
+			if (location.isDirectory()) {
+				ResultCache.digestClassFiles(location, "", digest);
+			} else {
+				digest.update(Files.readAllBytes(location.toPath()));
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			codeHash = sb.toString();
+		} catch (IOException | URISyntaxException | NoSuchAlgorithmException | IllegalArgumentException e) {
+			logger.warn("Could not hash the analyzer, cached results are only reused within this process: {}",
+					e.toString());
+			codeHash = UUID.randomUUID().toString();
+		}
+		return codeHash;
+	}
+
+	/**
+	 * Add the names and contents of all class files under dir to digest, in a
+	 * fixed order
+	 *
+	 * @param dir    directory to scan
+	 * @param prefix path of dir relative to the root of the scan
+	 * @param digest digest to update
+	 */
+	private static void digestClassFiles(File dir, String prefix, MessageDigest digest) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new IOException("Cannot list " + dir);
+		}
+		Arrays.sort(files);
+		for (File f : files) {
+			String name = prefix + f.getName();
+			if (f.isDirectory()) {
+				ResultCache.digestClassFiles(f, name + "/", digest);
+			} else if (name.endsWith(".class")) {
+				digest.update(name.getBytes(StandardCharsets.UTF_8));
+				digest.update(Files.readAllBytes(f.toPath()));
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param hash     content hash of the class file (see
+	 *                 {@link ClassToVerify#getContentHash()}) or method
+	 * @param property verified property
+	 * @return the cached result, or null if there is none
+	 */
+	public synchronized VerificationResult get(String hash, VerificationProperty property) {
+		Boolean isSafe = this.getResults().get(ResultCache.getKey(hash, property));
+		if (isSafe == null) {
+			return null;
+		}
+		return new VerificationResult(isSafe);
+	}
+
+	/**
+	 * Store a result, in memory and in the index
+	 *
+	 * @param hash     content hash of the class file or method
+	 * @param property verified property
+	 * @param result   result of verifying property
+	 */
+	public synchronized void put(String hash, VerificationProperty property, VerificationResult result) {
+		String key = ResultCache.getKey(hash, property);
+		Boolean previous = this.getResults().put(key, result.isSafe);
+		if (previous != null && previous == result.isSafe) {
+			return;
+		}
+
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.put(ResultCache.parseHash(hash));
+		record.put((byte) property.ordinal());
+		record.putLong(this.analyzerVersion);
+		record.put((byte) (result.isSafe ? 1 : 0));
+
+		this.index.getParentFile().mkdirs();
+		// appends are serialized by a file lock, so that concurrent processes
+		// neither interleave records nor both write the header
+		try (FileChannel out = FileChannel.open(this.index.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE); FileLock lock = out.lock()) {
+			long size = this.truncateToRecords(out);
+			// a single write of the (header and) complete record
+			ByteBuffer buf = ByteBuffer.allocate(size == 0 ? 4 + RECORD_SIZE : RECORD_SIZE);
+			if (size == 0) {
+				buf.putInt(MAGIC);
+			}
+			buf.put(record.array());
+			buf.flip();
+			out.position(size);
+			while (buf.hasRemaining()) {
+				out.write(buf);
+			}
+		} catch (IOException e) {
+			logger.warn("Could not write result cache {}: {}", this.index, e.toString());
+		}
+	}
+
+	/**
+	 * Drop a partially written record (or header) at the end of the index, e.g.,
+	 * left by a process killed while writing. Otherwise, all records appended
+	 * later would be misaligned. Must hold the lock of the index.
+	 *
+	 * @param channel open channel of the index
+	 * @return size of the index after truncation
+	 */
+	private long truncateToRecords(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long valid = ResultCache.getValidSize(size);
+		if (valid < size) {
+			logger.warn("Dropping {} bytes of a partial record at the end of result cache {}", size - valid,
+					this.index);
+			channel.truncate(valid);
+		}
+		return valid;
+	}
+
+	/**
+	 *
+	 * @param size size of an index
+	 * @return size of its header and complete records
+	 */
+	private static long getValidSize(long size) {
+		if (size < 4) {
+			return 0;
+		}
+		return 4 + (size - 4) / RECORD_SIZE * RECORD_SIZE;
+	}
+
+	private Map<String, Boolean> getResults() {
+		if (this.results == null) {
+			this.results = this.read();
+		}
+		return this.results;
+	}
+
+	private Map<String, Boolean> read() {
+		Map<String, Boolean> ret = new HashMap<String, Boolean>();
+		if (!this.index.exists()) {
+			return ret;
+		}
+		long startTime = System.nanoTime();
+		if (ResultCache.getValidSize(this.index.length()) != this.index.length()) {
+			try (FileChannel channel = FileChannel.open(this.index.toPath(), StandardOpenOption.WRITE);
+					FileLock lock = channel.lock()) {
+				this.truncateToRecords(channel);
+			} catch (IOException e) {
+				logger.warn("Could not repair result cache {}: {}", this.index, e.toString());
+			}
+		}
+		long records = (ResultCache.getValidSize(this.index.length()) - 4) / RECORD_SIZE;
+		VerificationProperty[] properties = VerificationProperty.values();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.index)))) {
+			if (in.readInt() != MAGIC) {
+				logger.warn("Ignoring result cache {} with unknown format", this.index);
+				this.index.delete();
+				return ret;
+			}
+			byte[] hash = new byte[HASH_SIZE];
+			for (long r = 0; r < records; r++) {
+				in.readFully(hash);
+				int property = in.readUnsignedByte();
+				long version = in.readLong();
+				boolean isSafe = in.readByte() != 0;
+				if (version == this.analyzerVersion && property < properties.length) {
+					ret.put(ResultCache.getKey(ResultCache.formatHash(hash), properties[property]), isSafe);
+				}
+			}
+		} catch (EOFException e) {
+			// empty index, or truncated by another process while reading
+		} catch (IOException e) {
+			logger.warn("Could not read result cache {}: {}", this.index, e.toString());
+		}
+		long durationMilliseconds = (System.nanoTime() - startTime) / 1000000;
+		logger.debug("Runtime: Read {} cached results in {}ms", ret.size(), durationMilliseconds);
+		return ret;
+	}
+
+	private static String getKey(String hash, VerificationProperty property) {
+		return hash + ":" + property.ordinal();
+	}
+
+	private static byte[] parseHash(String hash) {
+		if (hash.length() != 2 * HASH_SIZE) {
+			throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+		}
+		byte[] ret = new byte[HASH_SIZE];
+		for (int i = 0; i < HASH_SIZE; i++) {
+			ret[i] = (byte) Integer.parseInt(hash.substring(2 * i, 2 * i + 2), 16);
+		}
+		return ret;
+	}
+
+	private static String formatHash(byte[] hash) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : hash) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+}
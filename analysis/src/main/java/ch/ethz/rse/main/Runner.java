@@ -1,7 +1,18 @@
 package ch.ethz.rse.main;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import ch.ethz.rse.VerificationProperty;
 import ch.ethz.rse.VerificationTask;
 import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.numerical.NativeMemory;
+import ch.ethz.rse.pointer.PointsToCache;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.PointsToSummary;
+import ch.ethz.rse.utils.Configuration;
 import ch.ethz.rse.verify.AVerifier;
 import ch.ethz.rse.verify.ClassToVerify;
 import ch.ethz.rse.verify.Verifier;
@@ -25,6 +36,33 @@ public class Runner {
 		long endTime = System.nanoTime();
 		long durationMilliseconds = (endTime - startTime) / 1000000;
 		logger.debug("Runtime: Verified {} in {}ms", t, durationMilliseconds);
+		if (NativeMemory.isEnabled()) {
+			logger.debug("Native memory: {}", NativeMemory.getSummary());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Verify several properties of the same class. The class is loaded and
+	 * analyzed only once for all properties.
+	 * 
+	 * @param tc         class to verify
+	 * @param properties properties to verify
+	 * @return the result for each of <code>properties</code>
+	 */
+	public static Map<VerificationProperty, VerificationResult> verify(ClassToVerify tc,
+			Set<VerificationProperty> properties) {
+		long startTime = System.nanoTime();
+
+		Map<VerificationProperty, VerificationResult> ret = Runner.verifyInternal(tc, properties);
+
+		long endTime = System.nanoTime();
+		long durationMilliseconds = (endTime - startTime) / 1000000;
+		logger.debug("Runtime: Verified {}:{} in {}ms", tc, properties, durationMilliseconds);
+		if (NativeMemory.isEnabled()) {
+			logger.debug("Native memory: {}", NativeMemory.getSummary());
+		}
 
 		return ret;
 	}
@@ -32,17 +70,74 @@ public class Runner {
 	private static VerificationResult verifyInternal(VerificationTask t) {
 		logger.debug("Verifying {}", t.toString());
 
-		ClassToVerify tc = t.getTestClass();
+		return Runner.verifyInternal(t.getTestClass(), EnumSet.of(t.property)).get(t.property);
+	}
 
-		// load analyzed class
-		SootClass c = SootHelper.loadClassAndAnalyze(tc);
+	private static Map<VerificationProperty, VerificationResult> verifyInternal(ClassToVerify tc,
+			Set<VerificationProperty> properties) {
+		if (!Configuration.props.useResultCache()) {
+			return Runner.analyze(tc, properties);
+		}
 
-		VerificationResult ret;
+		// only analyze properties without a cached result
+		ResultCache cache = ResultCache.getDefault();
+		String hash = tc.getContentHash();
+		Map<VerificationProperty, VerificationResult> ret = new EnumMap<VerificationProperty, VerificationResult>(
+				VerificationProperty.class);
+		Set<VerificationProperty> missing = EnumSet.noneOf(VerificationProperty.class);
+		for (VerificationProperty property : properties) {
+			VerificationResult result = cache.get(hash, property);
+			if (result == null) {
+				missing.add(property);
+			} else {
+				logger.debug("Using cached result for {}:{}", tc, property);
+				ret.put(property, result);
+			}
+		}
+		if (!missing.isEmpty()) {
+			Map<VerificationProperty, VerificationResult> analyzed = Runner.analyze(tc, missing);
+			for (Map.Entry<VerificationProperty, VerificationResult> e : analyzed.entrySet()) {
+				cache.put(hash, e.getKey(), e.getValue());
+			}
+			ret.putAll(analyzed);
+		}
+		return ret;
+	}
+
+	private static Map<VerificationProperty, VerificationResult> analyze(ClassToVerify tc,
+			Set<VerificationProperty> properties) {
+		// load analyzed class, with points-to results from the cache if possible
+		long startTime = System.nanoTime();
+		SootClass c = null;
+		PointsToInitializer pointsTo = null;
+		boolean useCache = Configuration.props.usePointsToCache() && !SootHelper.isLoadedAndAnalyzed(tc);
+		String hash = useCache ? tc.getContentHash() : null;
+		PointsToSummary summary = useCache ? PointsToCache.get(hash) : null;
+		if (summary != null) {
+			c = SootHelper.loadIntoScene(tc);
+			pointsTo = PointsToCache.restore(c, summary);
+		}
+		if (pointsTo == null) {
+			c = SootHelper.loadClassAndAnalyze(tc);
+			pointsTo = new PointsToInitializer(c);
+			if (useCache) {
+				PointsToCache.put(hash, pointsTo.summarize());
+			}
+		} else {
+			logger.debug("Reusing cached points-to results for {}", tc);
+		}
+		long durationMilliseconds = (System.nanoTime() - startTime) / 1000000;
+		logger.debug("Runtime: Prepared {} ({} pipeline) in {}ms", tc, SootHelper.getPipelineName(),
+				durationMilliseconds);
 
-		AVerifier v = new Verifier(c);
-		boolean isSafe = v.check(t.property);
-		ret = new VerificationResult(isSafe);
+		AVerifier v = new Verifier(c, pointsTo);
+		Map<VerificationProperty, Boolean> isSafe = v.check(properties);
 
+		Map<VerificationProperty, VerificationResult> ret = new EnumMap<VerificationProperty, VerificationResult>(
+				VerificationProperty.class);
+		for (Map.Entry<VerificationProperty, Boolean> e : isSafe.entrySet()) {
+			ret.put(e.getKey(), new VerificationResult(e.getValue()));
+		}
 		return ret;
 	}
-}
\ No newline at end of file
+}
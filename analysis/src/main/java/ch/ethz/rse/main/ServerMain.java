@@ -0,0 +1,65 @@
+package ch.ethz.rse.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.cli.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point running a {@link VerificationServer}, either on stdin/stdout or
+ * on a local socket (<code>--port</code>)
+ */
+public class ServerMain {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServerMain.class);
+
+	public static void main(String[] args) throws ParseException, IOException {
+		// prepare parser
+		Options options = new Options();
+		Option portOption = new Option("port", "port", true, "Serve on this local port instead of stdin/stdout");
+		options.addOption(portOption);
+		// build parser
+		CommandLineParser parser = new DefaultParser();
+		CommandLine cmd = parser.parse(options, args);
+
+		VerificationServer server = new VerificationServer();
+		if (cmd.hasOption("port")) {
+			ServerMain.serveSocket(server, Integer.parseInt(cmd.getOptionValue("port")));
+		} else {
+			ServerMain.serveStdio(server);
+		}
+	}
+
+	private static void serveStdio(VerificationServer server) throws IOException {
+		// keep stdout for responses: log output to the console goes to stderr
+		PrintStream out = System.out;
+		System.setOut(System.err);
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		server.serve(in, out);
+	}
+
+	private static void serveSocket(VerificationServer server, int port) throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			logger.info("Serving verification requests on {}", serverSocket.getLocalSocketAddress());
+			while (true) {
+				try (Socket socket = serverSocket.accept()) {
+					BufferedReader in = new BufferedReader(
+							new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+					PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+					server.serve(in, out);
+				} catch (IOException e) {
+					logger.error("Connection failed", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package ch.ethz.rse.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.VerificationTask;
+
+/**
+ * Answers verification requests in a long-running process, so that the JVM,
+ * the JIT-compiled analysis, the Apron native libraries and (for unchanged
+ * classes) the Soot scene stay warm between requests.
+ * 
+ * Protocol (one request per line):
+ * 
+ * <pre>
+ * request:  &lt;packageName&gt; [&lt;PROPERTY&gt;[,&lt;PROPERTY&gt;...] ...]
+ * response: &lt;packageName&gt; &lt;PROPERTY&gt;=&lt;SAFE|UNSAFE&gt; ...
+ *           ERROR &lt;packageName&gt; &lt;message&gt;
+ * </pre>
+ * 
+ * Properties may be separated by commas or whitespace. Without properties,
+ * all properties are verified. The line
+ * <code>quit</code> (or end of input) ends the session.
+ */
+public class VerificationServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(VerificationServer.class);
+
+	public static final String QUIT = "quit";
+
+	/**
+	 * Answer requests from <code>in</code> until it is exhausted or a
+	 * {@link #QUIT} request arrives. Requests are handled one at a time, as
+	 * Soot keeps its scene in global state.
+	 * 
+	 * @param in  source of requests
+	 * @param out destination of responses
+	 */
+	public synchronized void serve(BufferedReader in, PrintStream out) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			if (line.equals(QUIT)) {
+				break;
+			}
+			out.println(this.handle(line));
+			out.flush();
+		}
+	}
+
+	/**
+	 * 
+	 * @param request a single request line
+	 * @return the response line
+	 */
+	String handle(String request) {
+		String[] parts = request.split("\\s+");
+		String packageName = parts[0];
+		try {
+			Set<VerificationProperty> properties = AuditMain
+					.parseProperties(parts.length > 1 ? Arrays.copyOfRange(parts, 1, parts.length) : null);
+			VerificationTask t = new VerificationTask(packageName, properties.iterator().next());
+			Map<VerificationProperty, VerificationResult> results = Runner.verify(t.getTestClass(), properties);
+
+			StringBuilder sb = new StringBuilder(packageName);
+			for (Map.Entry<VerificationProperty, VerificationResult> e : results.entrySet()) {
+				sb.append(' ').append(e.getKey()).append('=').append(e.getValue());
+			}
+			return sb.toString();
+		} catch (RuntimeException e) {
+			logger.error("Failed to verify {}", request, e);
+			return "ERROR " + packageName + " " + String.valueOf(e.getMessage()).replace('\n', ' ');
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package ch.ethz.rse.numerical;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.utils.Configuration;
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * Tracing of the numerical analysis, off by default (see
+ * {@link Configuration#traceAnalysis()}).
+ *
+ * The fixpoint evaluates every statement many times, and rendering an abstract
+ * element calls into Apron. All per-statement logging of the analysis hence
+ * goes through this class, which checks that tracing is enabled before
+ * rendering anything. Messages are parameterized as for SLF4J, so their
+ * arguments are only converted to strings when the message is logged.
+ */
+public class AnalysisTrace {
+
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisTrace.class);
+
+	private static final boolean enabled = Configuration.props.traceAnalysis();
+
+	private AnalysisTrace() {
+	}
+
+	/**
+	 *
+	 * @return true if the analysis is traced
+	 */
+	public static boolean isEnabled() {
+		return enabled && logger.isTraceEnabled();
+	}
+
+	public static void log(String format, Object arg) {
+		if (AnalysisTrace.isEnabled()) {
+			logger.trace(format, arg);
+		}
+	}
+
+	public static void log(String format, Object arg1, Object arg2) {
+		if (AnalysisTrace.isEnabled()) {
+			logger.trace(format, arg1, arg2);
+		}
+	}
+
+	/**
+	 * Trace one evaluation of a statement, as a single line of tab-separated
+	 * <code>key=value</code> fields
+	 *
+	 * @param method    analyzed method
+	 * @param unit      evaluated statement
+	 * @param in        state before unit
+	 * @param fallOut   state after unit when falling through (or null)
+	 * @param branchOut state after unit when jumping (or null)
+	 */
+	public static void step(SootMethod method, Unit unit, Object in, Object fallOut, Object branchOut) {
+		if (AnalysisTrace.isEnabled()) {
+			logger.trace("step\tmethod={}\tunit={}\tin={}\tfallout={}\tbranchout={}", method.getName(), unit, in,
+					fallOut, branchOut);
+		}
+	}
+}
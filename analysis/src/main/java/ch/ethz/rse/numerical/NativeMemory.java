@@ -0,0 +1,187 @@
+package ch.ethz.rse.numerical;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import apron.Abstract1;
+import apron.ApronException;
+import apron.Manager;
+import ch.ethz.rse.utils.Configuration;
+
+/**
+ * Accounting of the native memory held by Apron abstract elements.
+ *
+ * Apron's Java binding frees the native (Polka/GMP) memory of an
+ * {@link Abstract1} only when the garbage collector finalizes it, and offers
+ * no way to free it explicitly. As abstract elements are tiny on the Java
+ * heap, the collector may run rarely while native memory grows.
+ *
+ * When enabled (see {@link Configuration#useNativeMemoryAccounting()}), every
+ * element held by a {@link NumericalStateWrapper} is tracked by a phantom
+ * reference, which is enqueued once the element was finalized. This yields the
+ * number and Apron size (see {@link Abstract1#getSize(Manager)}) of live
+ * elements. Whenever the live elements exceed
+ * {@link Configuration#getNativeElementBudget()}, a collection with
+ * finalization is forced.
+ */
+public class NativeMemory {
+
+	private static final Logger logger = LoggerFactory.getLogger(NativeMemory.class);
+
+	private static final ReferenceQueue<Abstract1> queue = new ReferenceQueue<Abstract1>();
+
+	/**
+	 * Keeps the phantom references reachable until their element is finalized
+	 */
+	private static final Set<TrackedElement> tracked = Collections
+			.newSetFromMap(new ConcurrentHashMap<TrackedElement, Boolean>());
+
+	private static final AtomicLong liveElements = new AtomicLong();
+
+	private static final AtomicLong liveSize = new AtomicLong();
+
+	private static final AtomicLong peakElements = new AtomicLong();
+
+	private static final AtomicLong collections = new AtomicLong();
+
+	/**
+	 * Number of live elements above which the next collection is forced, unless
+	 * the budget is larger
+	 */
+	private static volatile long nextCollection = 0;
+
+	private static class TrackedElement extends PhantomReference<Abstract1> {
+
+		private final int size;
+
+		private TrackedElement(Abstract1 elem, int size) {
+			super(elem, queue);
+			this.size = size;
+		}
+	}
+
+	private NativeMemory() {
+	}
+
+	/**
+	 *
+	 * @return true if abstract elements are tracked
+	 */
+	public static boolean isEnabled() {
+		return Configuration.props.useNativeMemoryAccounting();
+	}
+
+	/**
+	 * Track a newly created abstract element (if enabled)
+	 *
+	 * @param man  manager of elem
+	 * @param elem new abstract element
+	 * @return elem
+	 */
+	static Abstract1 track(Manager man, Abstract1 elem) throws ApronException {
+		if (!NativeMemory.isEnabled()) {
+			return elem;
+		}
+		int size = elem.getSize(man);
+		tracked.add(new TrackedElement(elem, size));
+		liveSize.addAndGet(size);
+		long live = liveElements.incrementAndGet();
+		peakElements.accumulateAndGet(live, Math::max);
+
+		NativeMemory.poll();
+		long budget = Configuration.props.getNativeElementBudget();
+		if (budget > 0 && liveElements.get() > Math.max(budget, nextCollection)) {
+			NativeMemory.collect(budget);
+		}
+		return elem;
+	}
+
+	/**
+	 * Account for all finalized elements
+	 */
+	private static void poll() {
+		Reference<? extends Abstract1> ref;
+		while ((ref = queue.poll()) != null) {
+			TrackedElement t = (TrackedElement) ref;
+			if (tracked.remove(t)) {
+				liveElements.decrementAndGet();
+				liveSize.addAndGet(-t.size);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @param budget maximal number of live elements before forcing a collection
+	 */
+	private static synchronized void collect(long budget) {
+		if (liveElements.get() <= Math.max(budget, nextCollection)) {
+			// collected by another thread
+			return;
+		}
+		long startTime = System.nanoTime();
+		long before = liveElements.get();
+		System.gc();
+		System.runFinalization();
+		NativeMemory.poll();
+		collections.incrementAndGet();
+		// do not force another collection before the live elements doubled
+		nextCollection = 2 * liveElements.get();
+
+		long durationMilliseconds = (System.nanoTime() - startTime) / 1000000;
+		logger.debug("Runtime: Collected {} of {} live abstract elements in {}ms", before - liveElements.get(), before,
+				durationMilliseconds);
+	}
+
+	/**
+	 *
+	 * @return number of tracked elements that were not finalized yet
+	 */
+	public static long getLiveElements() {
+		NativeMemory.poll();
+		return liveElements.get();
+	}
+
+	/**
+	 *
+	 * @return total Apron size of the live elements
+	 */
+	public static long getLiveSize() {
+		NativeMemory.poll();
+		return liveSize.get();
+	}
+
+	/**
+	 *
+	 * @return maximal number of live elements so far
+	 */
+	public static long getPeakElements() {
+		return peakElements.get();
+	}
+
+	/**
+	 *
+	 * @return number of collections forced by the budget
+	 */
+	public static long getCollections() {
+		return collections.get();
+	}
+
+	/**
+	 *
+	 * @return all counters, for logging
+	 */
+	public static String getSummary() {
+		return String.format("%d live abstract elements (size %d, peak %d), %d forced collections",
+				NativeMemory.getLiveElements(), NativeMemory.getLiveSize(), NativeMemory.getPeakElements(),
+				NativeMemory.getCollections());
+	}
+}
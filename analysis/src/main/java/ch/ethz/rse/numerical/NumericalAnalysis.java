@@ -1,9 +1,12 @@
 package ch.ethz.rse.numerical;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -22,14 +25,17 @@ import apron.Texpr1Intern;
 import apron.Texpr1Node;
 import apron.Texpr1VarNode;
 import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.pointer.StoreIndex;
 import ch.ethz.rse.pointer.StoreInitializer;
 import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.utils.Configuration;
 import ch.ethz.rse.utils.Constants;
 import ch.ethz.rse.verify.EnvironmentGenerator;
 import ch.ethz.rse.verify.StoreInit;
 import gmp.Mpq;
 import soot.ArrayType;
 import soot.DoubleType;
+import soot.IntegerType;
 import soot.Local;
 import soot.RefType;
 import soot.SootHelper;
@@ -70,10 +76,9 @@ import soot.jimple.internal.JSpecialInvokeExpr;
 import soot.jimple.internal.JSubExpr;
 import soot.jimple.internal.JVirtualInvokeExpr;
 import soot.jimple.internal.JimpleLocal;
-import soot.jimple.toolkits.annotation.logic.Loop;
-import soot.toolkits.graph.LoopNestTree;
 import soot.toolkits.graph.UnitGraph;
 import soot.toolkits.scalar.ForwardBranchedFlowAnalysis;
+import soot.toolkits.scalar.SimpleLiveLocals;
 
 /**
  * Convenience class running a numerical analysis on a given {@link SootMethod}
@@ -85,15 +90,20 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	private final SootMethod method;
 
 	/**
-	 * the property we are verifying
+	 * the properties we are verifying
 	 */
-	private final VerificationProperty property;
+	private final Set<VerificationProperty> properties;
 
 	/**
 	 * the pointer analysis result we are verifying
 	 */
 	private final PointsToInitializer pointsTo;
 
+	/**
+	 * the initializers relevant to each statement of {@link #method}
+	 */
+	private final StoreIndex stores;
+
 	/**
 	 * all store initializers encountered until now
 	 */
@@ -107,27 +117,72 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	public HashMap<String, Interval> storageStore = new HashMap<String, Interval>();
 
 	/**
-	 * number of times this loop head was encountered during analysis
+	 * Dense numbering of the units of {@link #method}, indexing the arrays
+	 * below
+	 */
+	private final UnitNumbering numbering;
+
+	/**
+	 * whether each unit is the head of a loop, i.e., of a component of the weak
+	 * topological order (see {@link WeakTopologicalOrder#getComponentHeads()})
 	 */
-	private HashMap<Unit, IntegerWrapper> loopHeads = new HashMap<Unit, IntegerWrapper>();
+	private final boolean[] isLoopHead;
+
 	/**
-	 * Previously seen abstract state for each loop head
+	 * last merge point and its number: Soot merges the states of all
+	 * predecessors of a unit in a row, so its number is only looked up once
 	 */
-	private HashMap<Unit, NumericalStateWrapper> loopHeadState = new HashMap<Unit, NumericalStateWrapper>();
+	private Unit lastMergeNode = null;
+	private int lastMergeId = -1;
 
 	/**
-	 * Numerical abstract domain to use for analysis: Convex polyhedra
+	 * number of times each loop head was encountered during analysis
 	 */
-	public final Manager man = new Polka(true);
+	private final int[] loopHeadVisits;
+
+	/**
+	 * Previously seen abstract state for each loop head (null for other units)
+	 */
+	private final NumericalStateWrapper[] loopHeadState;
+
+	/**
+	 * Numerical abstract domain to use for analysis, see {@link NumericalDomain}
+	 */
+	public final Manager man;
 
 	public final Environment env;
 
+	/**
+	 * Partition of the variables in {@link #env}, each pack tracked separately
+	 */
+	private final VariablePacking packing;
+
+	/**
+	 * Integer locals that are dead after each unit, forgotten by
+	 * {@link #flowThrough} (null if {@link Configuration#forgetDeadLocals()}
+	 * is disabled)
+	 */
+	private Map<Unit, String[]> deadAfter = null;
+
 	/**
 	 * We apply widening after updating the state at a given merge point for the
-	 * {@link WIDENING_THRESHOLD}th time
+	 * {@link #wideningDelay}th time (see {@link Configuration#getWideningDelay()})
 	 */
-	private static final int WIDENING_THRESHOLD = 6;
+	private final int wideningDelay;
 
+	/**
+	 * Thresholds kept by widening (null if
+	 * {@link Configuration#useThresholdWidening()} is disabled)
+	 */
+	private WideningThresholds thresholds = null;
+
+
+	/**
+	 * Whether {@link #handleInvoke} checks the properties. Disabled while
+	 * iterating to the fixpoint, as {@link WtoFixpoint} checks the final states
+	 * instead (see {@link #checkProperties(Unit, NumericalStateWrapper)}).
+	 */
+	private boolean checkingEnabled = true;
 
 	// Verification Property result
 	public boolean nonNegativeResult = true;
@@ -140,29 +195,139 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	 * @param property the property we are verifying
 	 */
 	public NumericalAnalysis(SootMethod method, VerificationProperty property, PointsToInitializer pointsTo) {
-		super(SootHelper.getUnitGraph(method));
+		this(method, EnumSet.of(property), pointsTo);
+	}
 
-		UnitGraph g = SootHelper.getUnitGraph(method);
+	/**
+	 * Verify several properties in a single fixpoint computation, using the
+	 * first configured domain (see {@link Configuration#getNumericalDomains()})
+	 * 
+	 * @param method     method to analyze
+	 * @param properties the properties we are verifying
+	 */
+	public NumericalAnalysis(SootMethod method, Set<VerificationProperty> properties, PointsToInitializer pointsTo) {
+		this(method, properties, pointsTo, Configuration.props.getNumericalDomains().get(0));
+	}
 
-		this.property = property;
+	/**
+	 * Verify several properties in a single fixpoint computation
+	 * 
+	 * @param method     method to analyze
+	 * @param properties the properties we are verifying
+	 * @param domain     numerical abstract domain to use
+	 */
+	public NumericalAnalysis(SootMethod method, Set<VerificationProperty> properties, PointsToInitializer pointsTo,
+			NumericalDomain domain) {
+		this(method, properties, pointsTo, domain, SootHelper.getUnitGraph(method));
+	}
+
+	/**
+	 * 
+	 * @param g control flow graph of method, shared with other stages
+	 */
+	private NumericalAnalysis(SootMethod method, Set<VerificationProperty> properties, PointsToInitializer pointsTo,
+			NumericalDomain domain, UnitGraph g) {
+		super(g);
+
+		this.properties = EnumSet.copyOf(properties);
 
 		this.pointsTo = pointsTo;
+
+		this.stores = pointsTo.getStoreIndex(method);
 		
 		this.method = method;
 
+		this.man = domain.createManager();
+
 		this.alreadyInit = new HashSet<StoreInitializer>();
 
-		this.env = new EnvironmentGenerator(method, pointsTo).getEnvironment();
+		EnvironmentGenerator environmentGenerator = new EnvironmentGenerator(method, pointsTo);
+		this.env = environmentGenerator.getEnvironment();
+		if (Configuration.props.useVariablePacking()) {
+			this.packing = VariablePacking.compute(method, environmentGenerator.getVariables(), pointsTo);
+			logger.debug("Packed {} variables of {} into {} packs", environmentGenerator.getVariables().size(),
+					method.getName(), this.packing.size());
+		} else {
+			this.packing = new VariablePacking(this.env);
+		}
 
 		// initialize counts for loop heads
-		for (Loop l : new LoopNestTree(g.getBody())) {
-			loopHeads.put(l.getHead(), new IntegerWrapper(0));
+		this.numbering = SootHelper.getUnitNumbering(method);
+		this.isLoopHead = new boolean[this.numbering.size()];
+		this.loopHeadVisits = new int[this.numbering.size()];
+		this.loopHeadState = new NumericalStateWrapper[this.numbering.size()];
+		WeakTopologicalOrder wto = SootHelper.getWeakTopologicalOrder(method);
+		for (Unit head : wto.getComponentHeads()) {
+			this.isLoopHead[this.numbering.getNumber(head)] = true;
+		}
+
+		if (Configuration.props.forgetDeadLocals()) {
+			this.deadAfter = NumericalAnalysis.getDeadLocals(g);
+		}
+
+		this.wideningDelay = Configuration.props.getWideningDelay();
+		if (Configuration.props.useThresholdWidening()) {
+			this.thresholds = new WideningThresholds(this.packing, environmentGenerator.getVariables(),
+					WideningThresholds.getConstants(method, pointsTo));
 		}
 
 		// perform analysis by calling into super-class
-		logger.info("Analyzing {} in {}", method.getName(), method.getDeclaringClass().getName());
-		// TODO: remove comment below - testing RIGHT NOW
-		doAnalysis(); // calls newInitialFlow, entryInitialFlow, merge, flowThrough, and stops when a fixed point is reached
+		logger.info("Analyzing {} in {} using {}", method.getName(), method.getDeclaringClass().getName(), domain);
+		// properties are only checked on the final states, see WtoFixpoint
+		this.setCheckingEnabled(false);
+		WtoFixpoint fixpoint = new WtoFixpoint(this, g, this.numbering, wto, this.wideningDelay,
+				Configuration.props.getNarrowingPasses());
+		if (Configuration.props.useWtoIteration()) {
+			fixpoint.run();
+		} else {
+			doAnalysis(); // calls newInitialFlow, entryInitialFlow, merge, flowThrough, and stops when a fixed point is reached
+			fixpoint.narrow();
+		}
+	}
+
+	/**
+	 * 
+	 * @param g control flow graph of a method
+	 * @return for each unit of g, the integer locals that are live before but
+	 *         dead after the unit (omitting units without such locals)
+	 */
+	static Map<Unit, String[]> getDeadLocals(UnitGraph g) {
+		List<Local> ints = new ArrayList<Local>();
+		for (Local l : g.getBody().getLocals()) {
+			if (l.getType() instanceof IntegerType) {
+				ints.add(l);
+			}
+		}
+
+		SimpleLiveLocals liveLocals = new SimpleLiveLocals(g);
+		Map<Unit, String[]> ret = new HashMap<Unit, String[]>();
+		for (Unit u : g) {
+			Set<Local> liveBefore = new HashSet<Local>(liveLocals.getLiveLocalsBefore(u));
+			Set<Local> liveAfter = new HashSet<Local>(liveLocals.getLiveLocalsAfter(u));
+			List<String> dead = new ArrayList<String>();
+			for (Local l : ints) {
+				// locals defined by u but never read are dead, too
+				boolean definedHere = false;
+				for (ValueBox b : u.getDefBoxes()) {
+					definedHere = definedHere || b.getValue() == l;
+				}
+				if ((liveBefore.contains(l) || definedHere) && !liveAfter.contains(l)) {
+					dead.add(l.getName());
+				}
+			}
+			if (!dead.isEmpty()) {
+				ret.put(u, dead.toArray(new String[dead.size()]));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * 
+	 * @return the analyzed method
+	 */
+	public SootMethod getMethod() {
+		return this.method;
 	}
 
 	/**
@@ -196,13 +361,13 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	@Override
 	protected NumericalStateWrapper newInitialFlow() {
 		// should be bottom (only entry flows are not bottom originally)
-		return NumericalStateWrapper.bottom(man, env);
+		return NumericalStateWrapper.bottom(man, packing);
 	}
 
 	@Override
 	protected NumericalStateWrapper entryInitialFlow() {
 		// state of entry points into function
-		NumericalStateWrapper ret = NumericalStateWrapper.top(man, env);
+		NumericalStateWrapper ret = NumericalStateWrapper.top(man, packing);
 
 		// TODO: MAYBE FILL THIS OUT
 
@@ -212,22 +377,26 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	@Override
 	protected void merge(Unit succNode, NumericalStateWrapper w1, NumericalStateWrapper w2, NumericalStateWrapper w3) {
 		// merge the two states from w1 and w2 and store the result into w3
-		logger.debug("Merging NSW w1, w2, and putting into w3");
-		if (!loopHeads.containsKey(succNode)){
-			loopHeads.put(succNode, new IntegerWrapper(0));
-		}
-
-		IntegerWrapper count = loopHeads.get(succNode);
-		count.value++;
-
 		try {
-			Abstract1 approximation = w1.get().joinCopy(man, w2.get());
-			if (count.value >= WIDENING_THRESHOLD) {  // Apply widening
-				logger.info("Widening is applied");
-				w3.set(loopHeadState.get(succNode).get().widening(man, approximation));
+			NumericalStateWrapper approximation = w1.joinCopy(w2);
+			if (succNode != this.lastMergeNode) {
+				this.lastMergeNode = succNode;
+				this.lastMergeId = numbering.getNumber(succNode);
+			}
+			int id = this.lastMergeId;
+			if (!isLoopHead[id]) {
+				// every cycle passes through a loop head, no need to widen here
+				w3.set(approximation);
+				return;
+			}
+
+			loopHeadVisits[id]++;
+			if (loopHeadVisits[id] >= wideningDelay) {  // Apply widening
+				AnalysisTrace.log("Widening at {}", succNode);
+				w3.set(this.widening(loopHeadState[id], approximation));
 			} else { 
 				w3.set(approximation);
-				loopHeadState.put(succNode, new NumericalStateWrapper(man, approximation));
+				loopHeadState[id] = approximation;
 			}
 		} catch (ApronException e) {
 			e.printStackTrace();
@@ -235,7 +404,44 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 		
 	}
 
-	
+	/**
+	 * 
+	 * @param previous state at a merge point
+	 * @param next     later state at the same merge point
+	 * @return the widening of previous with next, keeping {@link #thresholds}
+	 *         if configured
+	 */
+	NumericalStateWrapper widening(NumericalStateWrapper previous, NumericalStateWrapper next) throws ApronException {
+		if (this.thresholds == null) {
+			return previous.widening(next);
+		}
+		return previous.wideningThreshold(next, this.thresholds);
+	}
+
+	/**
+	 * 
+	 * @param enabled whether {@link #handleInvoke} checks the properties
+	 */
+	void setCheckingEnabled(boolean enabled) {
+		this.checkingEnabled = enabled;
+	}
+
+	/**
+	 * Check the properties at u, given the final state before u (after the
+	 * descending passes). Unreachable states are skipped.
+	 * 
+	 * @param u  unit
+	 * @param in state before u at the fixpoint
+	 */
+	void checkProperties(Unit u, NumericalStateWrapper in) throws ApronException {
+		if (!(u instanceof JInvokeStmt) || in.isBottom()) {
+			return;
+		}
+		List<NumericalStateWrapper> fallOut = new ArrayList<NumericalStateWrapper>();
+		fallOut.add(this.newInitialFlow());
+		this.flowThrough(in, u, fallOut, new ArrayList<NumericalStateWrapper>());
+	}
+
 	@Override
 	protected void merge(NumericalStateWrapper src1, NumericalStateWrapper src2, NumericalStateWrapper trg) {
 		// this method is never called, we are using the other merge instead
@@ -245,8 +451,6 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	@Override
 	protected void flowThrough(NumericalStateWrapper inWrapper, Unit op, List<NumericalStateWrapper> fallOutWrappers,
 			List<NumericalStateWrapper> branchOutWrappers) {
-		logger.debug(inWrapper + " " + op + " => ?");
-
 		Stmt s = (Stmt) op;
 
 		// fallOutWrapper is the wrapper for the state after running op,
@@ -274,9 +478,6 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 		}
 
 		try {
-			// Get class of s and log it
-			String className = s.getClass().getName();
-			logger.debug("Class of s: " + className);
 			if (s instanceof DefinitionStmt) {
 				// handle assignment
 
@@ -312,17 +513,10 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 				// TODO: I tried it out
 				
 
-				logger.info("We have an JIFStmt " + s);
-				logger.info("Branchout was " + branchOutWrapper);
-				logger.info("Fallout was " + fallOutWrapper);
 				JIfStmt sJif = (JIfStmt) s;
 				Value c = sJif.getCondition();
 				ConditionExpr condition = (ConditionExpr) c;
 
-				// Get class of c and log it
-				String classNameC = c.getClass().getName();
-				logger.debug("Class of c: " + classNameC);
-
 				Lincons1 consBranchout = null; // We branchout when the condition holds
 				Lincons1 consFallout = null; // We fallout when the condition doesn't hold
 				// Condition must be of type, JEqExpr, JGeExpr, JGtExpr, JLeExpr, JLtExpr, JNeExpr
@@ -334,8 +528,6 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 				else if(condition instanceof JGeExpr){
 					consBranchout = linconsGen(condition, "GEQ");
 					consFallout = linconsGen(condition, "L");
-					logger.info("Consbranchout is " + consBranchout);
-					logger.info("Consfallout is " + consFallout);
 				}
 				else if(condition instanceof JGtExpr){
 					consBranchout = linconsGen(condition, "G");
@@ -346,8 +538,6 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 					consFallout = linconsGen(condition, "G");
 				}
 				else if(condition instanceof JLtExpr){
-
-					logger.info("We have a JLEExpr");
 					consBranchout = linconsGen(condition, "L");
 					consFallout = linconsGen(condition, "GEQ");
 				}
@@ -359,11 +549,10 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 				else{
 					unhandled("Unhandled condition", condition, true);
 				}	
-				branchOutWrapper.set(branchOutWrapper.get().meetCopy(man, consBranchout));
-				fallOutWrapper.set(fallOutWrapper.get().meetCopy(man, consFallout));
+				String packVariable = getPackVariable(condition);
+				branchOutWrapper.set(packVariable, branchOutWrapper.get(packVariable).meetCopy(man, consBranchout));
+				fallOutWrapper.set(packVariable, fallOutWrapper.get(packVariable).meetCopy(man, consFallout));
 
-				logger.info("Branchout is now" + branchOutWrapper.toString());
-				logger.info("Fallout is now" + fallOutWrapper.toString());
 
 				
 
@@ -390,14 +579,20 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 				unhandled("Unhandled statement", s, true);
 			}
 
-			// log outcome
-			if (fallOutWrapper != null) {
-				logger.debug(inWrapper.get() + " " + s + " =>[fallout] " + fallOutWrapper);
-			}
-			if (branchOutWrapper != null) {
-				logger.debug(inWrapper.get() + " " + s + " =>[branchout] " + branchOutWrapper);
+			// project out locals that are never read again
+			String[] dead = deadAfter == null ? null : deadAfter.get(op);
+			if (dead != null) {
+				if (fallOutWrapper != null) {
+					fallOutWrapper.forget(dead);
+				}
+				if (branchOutWrapper != null) {
+					branchOutWrapper.forget(dead);
+				}
 			}
 
+			// log outcome
+			AnalysisTrace.step(method, s, inWrapper, fallOutWrapper, branchOutWrapper);
+
 		} catch (ApronException e) {
 			throw new RuntimeException(e);
 		}
@@ -405,64 +600,60 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 
 	public void handleInvoke(JInvokeStmt jInvStmt, NumericalStateWrapper fallOutWrapper) throws ApronException {
 		// TODO: MAYBE FILL THIS OUT
-		logger.info("We are in handleInvoke, jInvStmt is " + jInvStmt); // we are doing getDelivery
-		// log JInvokeStmt
-		loopHeadState.put(jInvStmt, fallOutWrapper);
 		InvokeExpr invExpr = jInvStmt.getInvokeExpr();
-		logger.info("invExpr: " + invExpr); 
 		Value arg1 = invExpr.getArg(0); 
-		logger.info("(The size we call, or rather put in) arg1: " + arg1);
-
-		// We need the storeName
-		Value storeName = invExpr.getUseBoxes().get(1).getValue();
-		Abstract1 out = fallOutWrapper.get();
 
 		// Two cases of arg1, either its IntConstant or JimpleLocal
-		Interval bounds = getInterval(arg1, out);
+		Interval bounds = getInterval(arg1, fallOutWrapper);
 
-
-		
-		Collection<StoreInitializer> storeInitializers = pointsTo.getInitializers(method);
-		logger.info("Out wasz : " + out);
+		// the stores the receiver may point to
+		List<StoreInitializer> receivers = stores.getReceivers(jInvStmt);
+		String[] receiverLabels = stores.getReceiverLabels(jInvStmt);
 
 		//We have a case of Subtract, because we subtract it from the reserve size:
-		for(StoreInitializer store : storeInitializers){
-			if(storeName.hashCode() == store.getNumber()){
-				Texpr1Node texpr = new Texpr1VarNode(store.getUniqueLabel());
-				Texpr1Node sub = valTexpr1Node(arg1);
-				Texpr1Node res = new Texpr1BinNode(Texpr1BinNode.OP_SUB, texpr, sub);
-				out.assign(man, store.getUniqueLabel(), new Texpr1Intern(env, res), null);
+		if(receiverLabels.length > 0){
+			Texpr1Node delivered = valTexpr1Node(arg1);
+			if(receiverLabels.length > 1){
+				// weak update: the receiver is only one of the stores, so each
+				// of them may or may not get the delivery (t := t - [0,1]*arg1)
+				delivered = new Texpr1BinNode(Texpr1BinNode.OP_MUL, new Texpr1CstNode(new Interval(0, 1)), delivered);
+			}
+			// the store labels share a pack with arg1, and are updated in parallel
+			Environment packEnv = fallOutWrapper.getEnvironment(receiverLabels[0]);
+			Texpr1Intern[] updates = new Texpr1Intern[receiverLabels.length];
+			for(int i = 0; i < receiverLabels.length; i++){
+				Texpr1Node res = new Texpr1BinNode(Texpr1BinNode.OP_SUB, new Texpr1VarNode(receiverLabels[i]), delivered);
+				updates[i] = new Texpr1Intern(packEnv, res);
 			}
+			fallOutWrapper.modify(receiverLabels[0]).assign(man, receiverLabels, updates, null);
 		}
 
-		logger.info("Out is now: " + out);
-		
+		if (!this.checkingEnabled) {
+			return;
+		}
 
-		if(this.property == VerificationProperty.NON_NEGATIVE){
-			logger.info("Verification: NON_NEGATIVE?");
+		if(this.properties.contains(VerificationProperty.NON_NEGATIVE)){
 			if(bounds.inf().cmp(0) == -1){
 				nonNegativeResult = false;
-				logger.info("Non negative property is: " + nonNegativeResult);
+				AnalysisTrace.log("NON_NEGATIVE may be violated at {}: {}", jInvStmt, bounds);
 			}
 		}
 		
-		if(this.property == VerificationProperty.FITS_IN_TROLLEY){
-			for(StoreInitializer store : storeInitializers){
-				if(storeName.hashCode() == store.getNumber()){
-					logger.info("Trolley size is " + store.trolley_size + " and our bounds are " + bounds);
-					if(bounds.sup().cmp(store.trolley_size) == 1) fitsInTrolley = false;
+		if(this.properties.contains(VerificationProperty.FITS_IN_TROLLEY)){
+			for(StoreInitializer store : receivers){
+				if(bounds.sup().cmp(store.trolley_size) == 1) {
+					fitsInTrolley = false;
+					AnalysisTrace.log("FITS_IN_TROLLEY may be violated at {}: {}", jInvStmt, bounds);
 				}
 			}
 		}
-		if(this.property == VerificationProperty.FITS_IN_RESERVE){
-			for(StoreInitializer store : storeInitializers){
-				if(storeName.hashCode() == store.getNumber()){
-					Interval i = out.getBound(man, store.getUniqueLabel());
-					if(i.sup().cmp(0) == -1){
-						fitsInReserve = false;
-						logger.info("Doesnt fit in reserve");
-					} 
-				}
+		if(this.properties.contains(VerificationProperty.FITS_IN_RESERVE)){
+			for(String label : receiverLabels){
+				Interval i = fallOutWrapper.get(label).getBound(man, label);
+				if(i.sup().cmp(0) == -1){
+					fitsInReserve = false;
+					AnalysisTrace.log("FITS_IN_RESERVE may be violated at {}: {}", jInvStmt, i);
+				} 
 			}
 
 		}
@@ -472,36 +663,25 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 	}
 
 	public void handleInitialize(JInvokeStmt jInvStmt, NumericalStateWrapper fallOutWrapper) throws ApronException {
-		logger.info("We are in handleInitialize: store gets created, save the reserve size");
-
-		Abstract1 out = fallOutWrapper.get();
-		logger.info("Out was: " + out);
-		for(StoreInitializer si : pointsTo.getInitializers(method)){
-			if(jInvStmt.equals(si.getStatement())){
-				IntConstant a = IntConstant.v(si.reserve_size);
-				logger.info("Intconstant a i s" + a);
-				out.assign(man, si.getUniqueLabel(), new Texpr1Intern(env, valTexpr1Node(IntConstant.v(si.reserve_size))), null);
-				
-			}
+		StoreInitializer si = stores.getInitializer(jInvStmt);
+		if(si != null){
+			Abstract1 out = fallOutWrapper.modify(si.getUniqueLabel());
+			out.assign(man, si.getUniqueLabel(), new Texpr1Intern(fallOutWrapper.getEnvironment(si.getUniqueLabel()), valTexpr1Node(IntConstant.v(si.reserve_size))), null);
 		}
-		logger.info("Out is now: " + out);
-		
 	}
 
 	// returns state of in after assignment
 	private void handleDef(NumericalStateWrapper outWrapper, Value left, Value right) throws ApronException {
-		Abstract1 out = outWrapper.get();
 		String leftName = left.toString();
-		logger.info("We are in handleDef");
-		logger.info("outWrapper.get() gives (beforeState): " + out);
-		logger.info("leftName = rightName: " + left + " = " + right);
+		// all variables of the assignment share a pack
+		Abstract1 out = outWrapper.get(leftName);
+		Environment packEnv = outWrapper.getEnvironment(leftName);
 
 		// IntConstant or JimpleLocal:
 		if(right instanceof IntConstant || right instanceof JimpleLocal){
-			logger.info("Right is instanceOf IntConstant or JimpleLocal");
-			Interval interval = getInterval(right, out);
-			Abstract1 newAbs = new Abstract1(man, env, new String[]{leftName}, new Interval[]{interval});
-			out.meet(man, newAbs);
+			Interval interval = getInterval(right, outWrapper);
+			Abstract1 newAbs = new Abstract1(man, packEnv, new String[]{leftName}, new Interval[]{interval});
+			outWrapper.set(leftName, out.meetCopy(man, newAbs));
 		}
 		
 		// JMulExpr:
@@ -509,29 +689,24 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 			Texpr1Node leftNode = valTexpr1Node(((JMulExpr) right).getOp1());
 			Texpr1Node rightNode = valTexpr1Node(((JMulExpr) right).getOp2());
 			Texpr1Node res = new Texpr1BinNode(Texpr1BinNode.OP_MUL, leftNode, rightNode);
-			out.assign(man, leftName, new Texpr1Intern(env, res), null);
-			logger.info("New out is after add:" + out);
+			outWrapper.modify(leftName).assign(man, leftName, new Texpr1Intern(packEnv, res), null);
 		}
 
 		// JAddExpr:
 		else if(right instanceof JAddExpr){
-			logger.info("right is JAddExpr");
 			Texpr1Node leftNode = valTexpr1Node(((JAddExpr) right).getOp1());
 			Texpr1Node rightNode = valTexpr1Node(((JAddExpr) right).getOp2());
 			Texpr1Node res = new Texpr1BinNode(Texpr1BinNode.OP_ADD, leftNode, rightNode);
-			out.assign(man, leftName, new Texpr1Intern(env, res), null);
-			logger.info("New out is after add:" + out);
+			outWrapper.modify(leftName).assign(man, leftName, new Texpr1Intern(packEnv, res), null);
 
 		}
 		
 		// JSubExpr:
 		else if(right instanceof JSubExpr){
-			logger.info("right is Jsubexpr");
 			Texpr1Node leftNode = valTexpr1Node(((JSubExpr) right).getOp1());
 			Texpr1Node rightNode = valTexpr1Node(((JSubExpr) right).getOp2());
 			Texpr1Node res = new Texpr1BinNode(Texpr1BinNode.OP_SUB, leftNode, rightNode);
-			out.assign(man, leftName, new Texpr1Intern(env, res), null);
-			logger.info("New out is after sub:" + out);
+			outWrapper.modify(leftName).assign(man, leftName, new Texpr1Intern(packEnv, res), null);
 		}
 
 		else{
@@ -543,9 +718,24 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 
 	// TODO: MAYBE FILL THIS OUT: add convenience methods
 
+	/**
+	 * 
+	 * @param condition
+	 * @return a variable of condition, identifying the pack the condition
+	 *         constrains (null if condition has no variables)
+	 */
+	private String getPackVariable(ConditionExpr condition) {
+		if (condition.getOp1() instanceof JimpleLocal) {
+			return ((JimpleLocal) condition.getOp1()).getName();
+		} else if (condition.getOp2() instanceof JimpleLocal) {
+			return ((JimpleLocal) condition.getOp2()).getName();
+		}
+		return null;
+	}
+
 	public Lincons1 linconsGen(ConditionExpr condition, String op){
 		Lincons1 lincons = null;
-		Linexpr1 linexpr1 = new Linexpr1(env);
+		Linexpr1 linexpr1 = new Linexpr1(packing.getEnvironment(packing.getPack(getPackVariable(condition))));
 		Value a = condition.getOp1();
 		Value b = condition.getOp2();
 
@@ -597,7 +787,7 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 		return lincons;
 	}
 
-	public Interval getInterval(Value value, Abstract1 abs){
+	public Interval getInterval(Value value, NumericalStateWrapper w){
 		Interval interval = null;
 
 		if(value instanceof IntConstant){
@@ -606,7 +796,8 @@ public class NumericalAnalysis extends ForwardBranchedFlowAnalysis<NumericalStat
 
 		if(value instanceof JimpleLocal){
 			try {
-				interval = abs.getBound(man, new StringVar(((JimpleLocal) value).getName()));
+				String name = ((JimpleLocal) value).getName();
+				interval = w.get(name).getBound(man, new StringVar(name));
 			} catch (ApronException e) {
 				e.printStackTrace();
 				throw new RuntimeException();
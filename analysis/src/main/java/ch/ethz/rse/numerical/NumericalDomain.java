@@ -0,0 +1,69 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import apron.Box;
+import apron.Manager;
+import apron.Octagon;
+import apron.Polka;
+
+/**
+ * Numerical abstract domains available to {@link NumericalAnalysis}, ordered
+ * from cheapest to most precise
+ */
+public enum NumericalDomain {
+	/**
+	 * Intervals
+	 */
+	BOX,
+	/**
+	 * Octagons (constraints of the form +-x +-y <= c)
+	 */
+	OCTAGON,
+	/**
+	 * Convex polyhedra without strict inequalities
+	 */
+	POLKA_LOOSE,
+	/**
+	 * Convex polyhedra with strict inequalities
+	 */
+	POLKA_STRICT;
+
+	/**
+	 * 
+	 * @return a new Apron manager for this domain
+	 */
+	public Manager createManager() {
+		switch (this) {
+		case BOX:
+			return new Box();
+		case OCTAGON:
+			return new Octagon();
+		case POLKA_LOOSE:
+			return new Polka(false);
+		case POLKA_STRICT:
+			return new Polka(true);
+		default:
+			throw new UnsupportedOperationException(this.toString());
+		}
+	}
+
+	/**
+	 * 
+	 * @param s comma-separated domain names, e.g., <code>BOX,POLKA_STRICT</code>
+	 * @return the referenced domains, in the given order
+	 */
+	public static List<NumericalDomain> parseList(String s) {
+		List<NumericalDomain> ret = new ArrayList<NumericalDomain>();
+		for (String d : s.split(",")) {
+			if (!d.trim().isEmpty()) {
+				ret.add(NumericalDomain.valueOf(d.trim().toUpperCase()));
+			}
+		}
+		if (ret.isEmpty()) {
+			throw new IllegalArgumentException("No numerical domain in " + s);
+		}
+		return ret;
+	}
+}
@@ -1,5 +1,7 @@
 package ch.ethz.rse.numerical;
 
+import java.util.Arrays;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,19 +29,25 @@ public class NumericalStateWrapper {
 
 	// STATIC
 
-	public static NumericalStateWrapper bottom(Manager man, Environment env) {
+	public static NumericalStateWrapper bottom(Manager man, VariablePacking packing) {
 		try {
-			Abstract1 bot = new Abstract1(man, env, true);
-			return new NumericalStateWrapper(man, bot);
+			Abstract1[] bot = new Abstract1[packing.size()];
+			for (int i = 0; i < bot.length; i++) {
+				bot[i] = new Abstract1(man, packing.getEnvironment(i), true);
+			}
+			return new NumericalStateWrapper(man, packing, bot);
 		} catch (ApronException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public static NumericalStateWrapper top(Manager man, Environment env) {
+	public static NumericalStateWrapper top(Manager man, VariablePacking packing) {
 		try {
-			Abstract1 top = new Abstract1(man, env);
-			return new NumericalStateWrapper(man, top);
+			Abstract1[] top = new Abstract1[packing.size()];
+			for (int i = 0; i < top.length; i++) {
+				top[i] = new Abstract1(man, packing.getEnvironment(i));
+			}
+			return new NumericalStateWrapper(man, packing, top);
 		} catch (ApronException e) {
 			throw new RuntimeException(e);
 		}
@@ -48,55 +56,220 @@ public class NumericalStateWrapper {
 	// FIELDS
 
 	/**
-	 * Wrapped abstract element
+	 * Wrapped abstract elements, one per pack of {@link #packing}. Elements may
+	 * be shared with other states (copy-on-write, see {@link #owned}).
+	 */
+	private Abstract1[] elems;
+
+	/**
+	 * For each pack, whether this state is the only one referencing its
+	 * element, and may hence modify it in place. Copying a state only shares
+	 * its elements, which are duplicated on the first modification.
 	 */
-	private Abstract1 elem;
+	private boolean[] owned;
 
 	/**
 	 * Manager for numerical abstract domain
 	 */
 	private final Manager man;
 
+	/**
+	 * Partition of the variables into packs
+	 */
+	private final VariablePacking packing;
+
 	// CONSTRUCTOR
 
 	/**
 	 * 
-	 * @param man  Apron abstract domain manager
-	 * @param elem Abstract Apron element
+	 * @param man     Apron abstract domain manager
+	 * @param packing partition of the variables into packs
+	 * @param elems   Abstract Apron element for each pack (newly created, see
+	 *                {@link NativeMemory})
 	 */
-	public NumericalStateWrapper(Manager man, Abstract1 elem) {
+	public NumericalStateWrapper(Manager man, VariablePacking packing, Abstract1[] elems) {
 		this.man = man;
-		this.elem = elem;
+		this.packing = packing;
+		this.elems = elems;
+		this.owned = new boolean[elems.length];
+		Arrays.fill(this.owned, true);
+		try {
+			for (Abstract1 elem : elems) {
+				NativeMemory.track(man, elem);
+			}
+		} catch (ApronException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	// FUNCTIONS
 
-	public Abstract1 get() {
-		return elem;
+	/**
+	 * 
+	 * @param var variable name, or null for a constraint without variables
+	 * @return the abstract element of the pack holding var, which must not be
+	 *         modified (see {@link #modify(String)})
+	 */
+	public Abstract1 get(String var) {
+		return elems[packing.getPack(var)];
 	}
 
-	public void set(Abstract1 e) {
-		elem = e;
+	/**
+	 * 
+	 * @param var variable name
+	 * @return the abstract element of the pack holding var, which may be
+	 *         modified in place
+	 */
+	public Abstract1 modify(String var) throws ApronException {
+		return this.modify(packing.getPack(var));
+	}
+
+	private Abstract1 modify(int pack) throws ApronException {
+		if (!owned[pack]) {
+			elems[pack] = NativeMemory.track(man, new Abstract1(man, elems[pack]));
+			owned[pack] = true;
+		}
+		return elems[pack];
+	}
+
+	/**
+	 * 
+	 * @param var variable name, or null for a constraint without variables
+	 * @return environment of the pack holding var
+	 */
+	public Environment getEnvironment(String var) {
+		return packing.getEnvironment(packing.getPack(var));
+	}
+
+	/**
+	 * Replace the abstract element of the pack holding var. If the new element
+	 * is bottom, the whole state is unreachable.
+	 * 
+	 * @param var variable name, or null for a constraint without variables
+	 * @param e   new element for the pack (newly created, see
+	 *            {@link NativeMemory})
+	 */
+	public void set(String var, Abstract1 e) {
+		int pack = packing.getPack(var);
+		elems[pack] = e;
+		owned[pack] = true;
+		try {
+			NativeMemory.track(man, e);
+			if (elems.length > 1 && e.isBottom(man)) {
+				for (int i = 0; i < elems.length; i++) {
+					elems[i] = NativeMemory.track(man, new Abstract1(man, packing.getEnvironment(i), true));
+				}
+				Arrays.fill(owned, true);
+			}
+		} catch (ApronException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Share the abstract elements of other (without copying them)
+	 * 
+	 * @param other
+	 */
+	public void set(NumericalStateWrapper other) {
+		other.copyInto(this);
+	}
+
+	/**
+	 * 
+	 * @param other
+	 * @return the join of this and other
+	 */
+	public NumericalStateWrapper joinCopy(NumericalStateWrapper other) throws ApronException {
+		Abstract1[] ret = new Abstract1[elems.length];
+		for (int i = 0; i < elems.length; i++) {
+			ret[i] = elems[i].joinCopy(man, other.elems[i]);
+		}
+		return new NumericalStateWrapper(man, packing, ret);
+	}
+
+	/**
+	 * 
+	 * @param other
+	 * @return the widening of this with other
+	 */
+	public NumericalStateWrapper widening(NumericalStateWrapper other) throws ApronException {
+		Abstract1[] ret = new Abstract1[elems.length];
+		for (int i = 0; i < elems.length; i++) {
+			ret[i] = elems[i].widening(man, other.elems[i]);
+		}
+		return new NumericalStateWrapper(man, packing, ret);
+	}
+
+	/**
+	 * 
+	 * @param other
+	 * @param thresholds threshold constraints of each pack
+	 * @return the widening of this with other, keeping the thresholds
+	 *         satisfied by both
+	 */
+	public NumericalStateWrapper wideningThreshold(NumericalStateWrapper other, WideningThresholds thresholds)
+			throws ApronException {
+		Abstract1[] ret = new Abstract1[elems.length];
+		for (int i = 0; i < elems.length; i++) {
+			ret[i] = elems[i].wideningThreshold(man, other.elems[i], thresholds.get(i));
+		}
+		return new NumericalStateWrapper(man, packing, ret);
+	}
+
+	/**
+	 * 
+	 * @return true if this state is unreachable
+	 */
+	public boolean isBottom() throws ApronException {
+		for (Abstract1 elem : elems) {
+			if (elem.isBottom(man)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Forget all information about vars (in place)
+	 * 
+	 * @param vars variable names
+	 */
+	public void forget(String[] vars) throws ApronException {
+		if (elems.length == 1) {
+			this.modify(0).forget(man, vars, false);
+			return;
+		}
+		for (String var : vars) {
+			this.modify(var).forget(man, new String[] { var }, false);
+		}
 	}
 
 	public NumericalStateWrapper copy() {
-		Abstract1 copy;
 		try {
-			copy = new Abstract1(man, this.elem);
-			return new NumericalStateWrapper(this.man, copy);
+			Abstract1[] copy = new Abstract1[elems.length];
+			for (int i = 0; i < elems.length; i++) {
+				copy[i] = new Abstract1(man, elems[i]);
+			}
+			return new NumericalStateWrapper(this.man, this.packing, copy);
 		} catch (ApronException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	/**
-	 * Copies this state into `other`
+	 * Copies this state into `other`. The abstract elements are shared until
+	 * either state modifies them.
 	 * 
 	 * @param other
 	 */
 	public void copyInto(NumericalStateWrapper other) {
-		NumericalStateWrapper copy = this.copy();
-		other.elem = copy.elem;
+		if (other == this) {
+			return;
+		}
+		Arrays.fill(this.owned, false);
+		other.elems = this.elems.clone();
+		other.owned = new boolean[elems.length];
 	}
 
 	// TODO: MAYBE FILL THIS OUT: add convenience methods
@@ -118,14 +291,23 @@ public class NumericalStateWrapper {
 		}
 		NumericalStateWrapper w = (NumericalStateWrapper) o;
 
-		Abstract1 t = w.get();
 		try {
-			// sanity check
-			if (elem.isEqual(man, t) && !elem.isIncluded(man, t)) {
-				throw new RuntimeException("VIOLATION");
+			for (int i = 0; i < elems.length; i++) {
+				Abstract1 elem = elems[i];
+				Abstract1 t = w.elems[i];
+				if (elem == t) {
+					// shared by copy-on-write
+					continue;
+				}
+				// sanity check
+				if (elem.isEqual(man, t) && !elem.isIncluded(man, t)) {
+					throw new RuntimeException("VIOLATION");
+				}
+				if (!elem.isEqual(man, t)) {
+					return false;
+				}
 			}
-
-			return elem.isEqual(man, t);
+			return true;
 		} catch (ApronException e) {
 			throw new RuntimeException("isEqual failed");
 		}
@@ -140,13 +322,17 @@ public class NumericalStateWrapper {
 	@Override
 	public String toString() {
 		try {
-			if (elem == null) {
+			if (elems == null) {
 				return "null";
-			} else if (elem.isTop(man)) {
-				return "<Top>";
-			} else {
-				return elem.toString();
 			}
+			StringBuilder sb = new StringBuilder();
+			for (Abstract1 elem : elems) {
+				if (sb.length() > 0) {
+					sb.append(" x ");
+				}
+				sb.append(elem.isTop(man) ? "<Top>" : elem.toString());
+			}
+			return sb.toString();
 		} catch (ApronException e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,151 @@
+package ch.ethz.rse.numerical;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.SootHelper;
+import soot.Unit;
+import soot.UnitBox;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * Dense numbering of the units of a method body, from 0 to
+ * {@link #size()}-1 in the order of the body, so that per-unit data can be
+ * kept in arrays. The predecessors and successors of each unit in the control
+ * flow graph are kept as arrays of numbers, along with the kind of each edge
+ * from a predecessor.
+ *
+ * Numberings are shared by all stages analyzing a method, see
+ * {@link SootHelper#getUnitNumbering(soot.SootMethod)}.
+ */
+public class UnitNumbering {
+
+	/**
+	 * Edge kind: the unit follows its predecessor in the body, which falls
+	 * through to it
+	 */
+	public static final int FALL_THROUGH = 1;
+
+	/**
+	 * Edge kind: the predecessor branches to the unit
+	 */
+	public static final int BRANCH = 2;
+
+	private final Map<Unit, Integer> numbers = new IdentityHashMap<Unit, Integer>();
+
+	private final Unit[] units;
+
+	/**
+	 * Numbers of the predecessors of each unit
+	 */
+	private final int[][] preds;
+
+	/**
+	 * Kinds of the edges from the predecessors of each unit (a combination of
+	 * {@link #FALL_THROUGH} and {@link #BRANCH}, parallel to {@link #preds})
+	 */
+	private final int[][] predEdges;
+
+	/**
+	 * Numbers of the successors of each unit
+	 */
+	private final int[][] succs;
+
+	/**
+	 *
+	 * @param graph control flow graph of the method body to number
+	 */
+	public UnitNumbering(UnitGraph graph) {
+		this.units = graph.getBody().getUnits().toArray(new Unit[0]);
+		for (int i = 0; i < this.units.length; i++) {
+			this.numbers.put(this.units[i], i);
+		}
+		this.preds = new int[this.units.length][];
+		this.predEdges = new int[this.units.length][];
+		this.succs = new int[this.units.length][];
+		for (int i = 0; i < this.units.length; i++) {
+			this.preds[i] = this.toNumbers(graph.getPredsOf(this.units[i]));
+			this.predEdges[i] = this.toEdges(i, this.preds[i]);
+			this.succs[i] = this.toNumbers(graph.getSuccsOf(this.units[i]));
+		}
+	}
+
+	private int[] toEdges(int number, int[] preds) {
+		int[] ret = new int[preds.length];
+		for (int i = 0; i < ret.length; i++) {
+			Unit pred = this.units[preds[i]];
+			if (pred.fallsThrough() && preds[i] + 1 == number) {
+				ret[i] |= FALL_THROUGH;
+			}
+			for (UnitBox box : pred.getUnitBoxes()) {
+				if (box.getUnit() == this.units[number]) {
+					ret[i] |= BRANCH;
+				}
+			}
+		}
+		return ret;
+	}
+
+	private int[] toNumbers(List<Unit> units) {
+		int[] ret = new int[units.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = this.getNumber(units.get(i));
+		}
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param u unit of the body
+	 * @return number of u
+	 */
+	public int getNumber(Unit u) {
+		return this.numbers.get(u);
+	}
+
+	/**
+	 *
+	 * @param number
+	 * @return unit with the given number
+	 */
+	public Unit getUnit(int number) {
+		return this.units[number];
+	}
+
+	/**
+	 *
+	 * @param number number of a unit
+	 * @return numbers of the predecessors of the unit (must not be modified)
+	 */
+	public int[] getPreds(int number) {
+		return this.preds[number];
+	}
+
+	/**
+	 *
+	 * @param number number of a unit
+	 * @return kinds of the edges from the predecessors of the unit, in the
+	 *         order of {@link #getPreds(int)} (must not be modified)
+	 */
+	public int[] getPredEdges(int number) {
+		return this.predEdges[number];
+	}
+
+	/**
+	 *
+	 * @param number number of a unit
+	 * @return numbers of the successors of the unit (must not be modified)
+	 */
+	public int[] getSuccs(int number) {
+		return this.succs[number];
+	}
+
+	/**
+	 *
+	 * @return number of units
+	 */
+	public int size() {
+		return this.units.length;
+	}
+}
@@ -0,0 +1,188 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import apron.Environment;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.StoreIndex;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.BinopExpr;
+import soot.jimple.ConditionExpr;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.InvokeExpr;
+import soot.jimple.internal.JAddExpr;
+import soot.jimple.internal.JIfStmt;
+import soot.jimple.internal.JInvokeStmt;
+import soot.jimple.internal.JMulExpr;
+import soot.jimple.internal.JSubExpr;
+import soot.jimple.internal.JVirtualInvokeExpr;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Partition of the variables of a method into packs, each tracked by its own
+ * abstract element (see {@link NumericalStateWrapper}).
+ *
+ * Two variables share a pack if the analysis may relate them: operands and
+ * result of <code>+</code>, <code>-</code> and <code>*</code>, operands of a
+ * condition, and the argument of <code>get_delivery</code> with all stores it
+ * may be called on. Every statement then only touches a single pack.
+ */
+public class VariablePacking {
+
+	/**
+	 * Pack of each variable
+	 */
+	private final Map<String, Integer> packs = new HashMap<String, Integer>();
+
+	/**
+	 * Environment of each pack
+	 */
+	private final Environment[] envs;
+
+	/**
+	 * A single pack holding all variables of env
+	 *
+	 * @param env
+	 */
+	public VariablePacking(Environment env) {
+		this.envs = new Environment[] { env };
+	}
+
+	/**
+	 *
+	 * @param packs variables of each pack
+	 */
+	VariablePacking(List<List<String>> packs) {
+		this.envs = new Environment[Math.max(1, packs.size())];
+		this.envs[0] = new Environment(new String[0], new String[0]);
+		for (int i = 0; i < packs.size(); i++) {
+			List<String> pack = packs.get(i);
+			for (String var : pack) {
+				this.packs.put(var, i);
+			}
+			this.envs[i] = new Environment(pack.toArray(new String[pack.size()]), new String[0]);
+		}
+	}
+
+	/**
+	 *
+	 * @param method    method to analyze
+	 * @param variables all integer variables of method (see
+	 *                  {@link ch.ethz.rse.verify.EnvironmentGenerator})
+	 * @param pointsTo  points to analysis for method
+	 * @return the finest packing such that every statement of method only
+	 *         touches a single pack
+	 */
+	public static VariablePacking compute(SootMethod method, List<String> variables, PointsToInitializer pointsTo) {
+		// union-find over variable names
+		Map<String, String> parent = new LinkedHashMap<String, String>();
+		for (String var : variables) {
+			parent.put(var, var);
+		}
+
+		StoreIndex stores = pointsTo.getStoreIndex(method);
+		for (Unit u : method.retrieveActiveBody().getUnits()) {
+			if (u instanceof DefinitionStmt) {
+				DefinitionStmt sd = (DefinitionStmt) u;
+				Value right = sd.getRightOp();
+				if (right instanceof JAddExpr || right instanceof JSubExpr || right instanceof JMulExpr) {
+					BinopExpr b = (BinopExpr) right;
+					String left = sd.getLeftOp().toString();
+					VariablePacking.union(parent, left, VariablePacking.getName(b.getOp1()));
+					VariablePacking.union(parent, left, VariablePacking.getName(b.getOp2()));
+				}
+			} else if (u instanceof JIfStmt) {
+				ConditionExpr condition = (ConditionExpr) ((JIfStmt) u).getCondition();
+				VariablePacking.union(parent, VariablePacking.getName(condition.getOp1()),
+						VariablePacking.getName(condition.getOp2()));
+			} else if (u instanceof JInvokeStmt) {
+				InvokeExpr invokeExpr = ((JInvokeStmt) u).getInvokeExpr();
+				if (invokeExpr instanceof JVirtualInvokeExpr && invokeExpr.getArgCount() > 0) {
+					// same stores as NumericalAnalysis.handleInvoke, which updates
+					// them in parallel
+					String arg = VariablePacking.getName(invokeExpr.getArg(0));
+					String[] labels = stores.getReceiverLabels(u);
+					for (String label : labels) {
+						VariablePacking.union(parent, label, arg);
+						VariablePacking.union(parent, label, labels[0]);
+					}
+				}
+			}
+		}
+
+		// collect packs, in the order of variables
+		Map<String, List<String>> packs = new LinkedHashMap<String, List<String>>();
+		for (String var : variables) {
+			String root = VariablePacking.find(parent, var);
+			List<String> pack = packs.get(root);
+			if (pack == null) {
+				pack = new ArrayList<String>();
+				packs.put(root, pack);
+			}
+			pack.add(var);
+		}
+		return new VariablePacking(new ArrayList<List<String>>(packs.values()));
+	}
+
+	private static String getName(Value v) {
+		if (v instanceof JimpleLocal) {
+			return ((JimpleLocal) v).getName();
+		}
+		return null;
+	}
+
+	private static String find(Map<String, String> parent, String var) {
+		String root = var;
+		while (!parent.get(root).equals(root)) {
+			root = parent.get(root);
+		}
+		// path compression
+		while (!var.equals(root)) {
+			String next = parent.get(var);
+			parent.put(var, root);
+			var = next;
+		}
+		return root;
+	}
+
+	private static void union(Map<String, String> parent, String a, String b) {
+		if (a == null || b == null || !parent.containsKey(a) || !parent.containsKey(b)) {
+			// constants and variables the analysis does not track
+			return;
+		}
+		parent.put(VariablePacking.find(parent, a), VariablePacking.find(parent, b));
+	}
+
+	/**
+	 *
+	 * @return number of packs
+	 */
+	public int size() {
+		return this.envs.length;
+	}
+
+	/**
+	 *
+	 * @param var variable name, or null for a constraint without variables
+	 * @return index of the pack holding var (0 if var is null or unknown)
+	 */
+	public int getPack(String var) {
+		Integer pack = var == null ? null : this.packs.get(var);
+		return pack == null ? 0 : pack;
+	}
+
+	/**
+	 *
+	 * @param pack index of a pack
+	 * @return environment of the pack
+	 */
+	public Environment getEnvironment(int pack) {
+		return this.envs[pack];
+	}
+}
@@ -0,0 +1,262 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import soot.Unit;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * Weak topological ordering of a control flow graph, computed with the
+ * algorithm of Bourdoncle ("Efficient chaotic iteration strategies with
+ * widenings", 1993).
+ *
+ * The units are arranged in a hierarchy of nested components. Every cycle of
+ * the graph contains the head of a component, so widening only at component
+ * heads guarantees termination. For the reducible graphs compiled from Java,
+ * the component heads are the loop heads found by
+ * {@link soot.toolkits.graph.LoopNestTree}.
+ */
+public class WeakTopologicalOrder {
+
+	/**
+	 * A single unit, or a component (head followed by its body)
+	 */
+	public static class Element {
+
+		private final Unit head;
+
+		/**
+		 * Number of head
+		 */
+		private final int headNumber;
+
+		/**
+		 * null for a single unit
+		 */
+		private final List<Element> body;
+
+		private Element(Unit head, int headNumber, List<Element> body) {
+			this.head = head;
+			this.headNumber = headNumber;
+			this.body = body;
+		}
+
+		/**
+		 *
+		 * @return the unit, or the head of the component
+		 */
+		public Unit getHead() {
+			return this.head;
+		}
+
+		/**
+		 *
+		 * @return the number of {@link #getHead()} in the numbering the order
+		 *         was computed from
+		 */
+		public int getHeadNumber() {
+			return this.headNumber;
+		}
+
+		public boolean isComponent() {
+			return this.body != null;
+		}
+
+		/**
+		 *
+		 * @return the elements of the component after its head
+		 */
+		public List<Element> getBody() {
+			return this.body;
+		}
+
+		@Override
+		public String toString() {
+			return this.isComponent() ? "(" + this.head + " " + this.body + ")" : this.head.toString();
+		}
+	}
+
+	private final UnitNumbering numbering;
+
+	/**
+	 * Depth-first number of each visited unit (0 for unvisited, MAX_VALUE once
+	 * placed in the ordering)
+	 */
+	private final int[] dfn;
+
+	/**
+	 * Units visited but not placed in the ordering yet
+	 */
+	private final int[] stack;
+
+	private int stackSize = 0;
+
+	private int num = 0;
+
+	private final List<Element> elements;
+
+	/**
+	 * Heads of all (nested) components, used as the widening points of both
+	 * iteration strategies
+	 */
+	private final Set<Unit> componentHeads = new HashSet<Unit>();
+
+	/**
+	 *
+	 * @param graph control flow graph
+	 */
+	public WeakTopologicalOrder(UnitGraph graph) {
+		this(graph.getHeads(), new UnitNumbering(graph));
+	}
+
+	/**
+	 *
+	 * @param heads     entries of the control flow graph
+	 * @param numbering numbering of the control flow graph, whose successor
+	 *                  arrays are followed
+	 */
+	public WeakTopologicalOrder(List<Unit> heads, UnitNumbering numbering) {
+		this.numbering = numbering;
+		this.dfn = new int[numbering.size()];
+		this.stack = new int[numbering.size()];
+		Deque<Element> partition = new ArrayDeque<Element>();
+		for (Unit head : heads) {
+			int v = numbering.getNumber(head);
+			if (this.dfn[v] == 0) {
+				this.visit(v, partition);
+			}
+		}
+		// units not reachable from a head (never produced by Soot for Java)
+		for (int v = 0; v < numbering.size(); v++) {
+			if (this.dfn[v] == 0) {
+				this.visit(v, partition);
+			}
+		}
+		this.elements = new ArrayList<Element>(partition);
+	}
+
+	/**
+	 * A pending call of the recursive algorithm: either visiting a unit, or
+	 * building the component headed by a unit. Calls are kept on an explicit
+	 * stack, as long methods would overflow the call stack.
+	 */
+	private static class Frame {
+
+		private final int v;
+
+		private final boolean isComponent;
+
+		/**
+		 * Partition the result is added to
+		 */
+		private final Deque<Element> partition;
+
+		/**
+		 * Partition of the body (components only)
+		 */
+		private final Deque<Element> body;
+
+		private final int[] succs;
+
+		/**
+		 * Index of the next successor to process
+		 */
+		private int next = 0;
+
+		private int head;
+
+		private boolean loop = false;
+
+		private Frame(int v, boolean isComponent, Deque<Element> partition, int[] succs, int head) {
+			this.v = v;
+			this.isComponent = isComponent;
+			this.partition = partition;
+			this.body = isComponent ? new ArrayDeque<Element>() : null;
+			this.succs = succs;
+			this.head = head;
+		}
+	}
+
+	private void visit(int root, Deque<Element> partition) {
+		Deque<Frame> frames = new ArrayDeque<Frame>();
+		frames.push(this.enter(root, partition));
+		while (!frames.isEmpty()) {
+			Frame f = frames.peek();
+			if (f.next < f.succs.length) {
+				int w = f.succs[f.next++];
+				if (this.dfn[w] == 0) {
+					frames.push(this.enter(w, f.isComponent ? f.body : f.partition));
+				} else if (!f.isComponent) {
+					this.update(f, this.dfn[w]);
+				}
+				continue;
+			}
+
+			frames.pop();
+			int head = f.head;
+			Unit v = this.numbering.getUnit(f.v);
+			if (f.isComponent) {
+				f.partition.addFirst(new Element(v, f.v, new ArrayList<Element>(f.body)));
+			} else if (head == this.dfn[f.v]) {
+				this.dfn[f.v] = Integer.MAX_VALUE;
+				int element = this.stack[--this.stackSize];
+				if (f.loop) {
+					while (element != f.v) {
+						this.dfn[element] = 0;
+						element = this.stack[--this.stackSize];
+					}
+					// build the component before returning head
+					this.componentHeads.add(v);
+					frames.push(new Frame(f.v, true, f.partition, this.numbering.getSuccs(f.v), head));
+					continue;
+				}
+				f.partition.addFirst(new Element(v, f.v, null));
+			}
+			// return head to the visit of the predecessor, if any
+			if (!frames.isEmpty() && !frames.peek().isComponent) {
+				this.update(frames.peek(), head);
+			}
+		}
+	}
+
+	private Frame enter(int v, Deque<Element> partition) {
+		this.stack[this.stackSize++] = v;
+		this.num++;
+		this.dfn[v] = this.num;
+		return new Frame(v, false, partition, this.numbering.getSuccs(v), this.num);
+	}
+
+	private void update(Frame f, int min) {
+		if (min <= f.head) {
+			f.head = min;
+			f.loop = true;
+		}
+	}
+
+	/**
+	 *
+	 * @return the top-level elements, in iteration order
+	 */
+	public List<Element> getElements() {
+		return this.elements;
+	}
+
+	/**
+	 *
+	 * @return the heads of all (nested) components
+	 */
+	public Set<Unit> getComponentHeads() {
+		return Collections.unmodifiableSet(this.componentHeads);
+	}
+
+	@Override
+	public String toString() {
+		return this.elements.toString();
+	}
+}
@@ -0,0 +1,144 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import apron.Lincons1;
+import apron.Linexpr1;
+import apron.MpqScalar;
+import apron.StringVar;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.StoreIndex;
+import ch.ethz.rse.pointer.StoreInitializer;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.ConditionExpr;
+import soot.jimple.IntConstant;
+import soot.jimple.InvokeExpr;
+import soot.jimple.internal.JIfStmt;
+import soot.jimple.internal.JInvokeStmt;
+
+/**
+ * Threshold constraints for widening with thresholds: widening keeps every
+ * bound <code>v &lt;= c</code> or <code>v &gt;= c</code> satisfied by both of
+ * its arguments, instead of dropping it.
+ *
+ * Each variable only gets the constants its bounds are likely to stabilize at,
+ * which keeps the number of constraints passed to every widening small: the
+ * label of a store gets 0 and its reserve size, and an integer local gets the
+ * trolley sizes of the stores it is delivered to and the constants it is
+ * compared against in conditions (and their neighbours, for strict
+ * comparisons).
+ */
+public class WideningThresholds {
+
+	/**
+	 * Threshold constraints of each pack, over the environment of the pack
+	 */
+	private final Lincons1[][] thresholds;
+
+	/**
+	 *
+	 * @param packing   partition of the variables
+	 * @param variables variables to bound
+	 * @param constants threshold constants of each variable (variables without
+	 *                  an entry are not bounded)
+	 */
+	public WideningThresholds(VariablePacking packing, List<String> variables,
+			Map<String, ? extends Collection<Integer>> constants) {
+		List<List<Lincons1>> packs = new ArrayList<List<Lincons1>>();
+		for (int i = 0; i < packing.size(); i++) {
+			packs.add(new ArrayList<Lincons1>());
+		}
+		for (String var : variables) {
+			Collection<Integer> ofVar = constants.get(var);
+			if (ofVar == null) {
+				continue;
+			}
+			int pack = packing.getPack(var);
+			for (int c : ofVar) {
+				// c - var >= 0
+				Linexpr1 upper = new Linexpr1(packing.getEnvironment(pack));
+				upper.setCoeff(new StringVar(var), new MpqScalar(-1));
+				upper.setCst(new MpqScalar(c));
+				packs.get(pack).add(new Lincons1(Lincons1.SUPEQ, upper));
+				// var - c >= 0
+				Linexpr1 lower = new Linexpr1(packing.getEnvironment(pack));
+				lower.setCoeff(new StringVar(var), new MpqScalar(1));
+				lower.setCst(new MpqScalar(-c));
+				packs.get(pack).add(new Lincons1(Lincons1.SUPEQ, lower));
+			}
+		}
+		this.thresholds = new Lincons1[packs.size()][];
+		for (int i = 0; i < packs.size(); i++) {
+			this.thresholds[i] = packs.get(i).toArray(new Lincons1[packs.get(i).size()]);
+		}
+	}
+
+	/**
+	 *
+	 * @param method   method to analyze
+	 * @param pointsTo points to analysis for method
+	 * @return threshold constants of each variable of method
+	 */
+	public static Map<String, SortedSet<Integer>> getConstants(SootMethod method, PointsToInitializer pointsTo) {
+		Map<String, SortedSet<Integer>> ret = new HashMap<String, SortedSet<Integer>>();
+		for (StoreInitializer store : pointsTo.getInitializers(method)) {
+			WideningThresholds.add(ret, store.getUniqueLabel(), 0);
+			WideningThresholds.add(ret, store.getUniqueLabel(), store.reserve_size);
+		}
+		StoreIndex stores = pointsTo.getStoreIndex(method);
+		for (Unit u : method.retrieveActiveBody().getUnits()) {
+			if (u instanceof JIfStmt) {
+				ConditionExpr condition = (ConditionExpr) ((JIfStmt) u).getCondition();
+				WideningThresholds.addCompared(ret, condition.getOp1(), condition.getOp2());
+				WideningThresholds.addCompared(ret, condition.getOp2(), condition.getOp1());
+			} else if (u instanceof JInvokeStmt) {
+				InvokeExpr invokeExpr = ((JInvokeStmt) u).getInvokeExpr();
+				if (invokeExpr.getArgCount() == 0 || !(invokeExpr.getArg(0) instanceof Local)) {
+					continue;
+				}
+				String delivered = ((Local) invokeExpr.getArg(0)).getName();
+				for (StoreInitializer store : stores.getReceivers(u)) {
+					WideningThresholds.add(ret, delivered, store.trolley_size);
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static void addCompared(Map<String, SortedSet<Integer>> constants, Value var, Value op) {
+		if (var instanceof Local && op instanceof IntConstant) {
+			String name = ((Local) var).getName();
+			int c = ((IntConstant) op).value;
+			WideningThresholds.add(constants, name, c - 1);
+			WideningThresholds.add(constants, name, c);
+			WideningThresholds.add(constants, name, c + 1);
+		}
+	}
+
+	private static void add(Map<String, SortedSet<Integer>> constants, String var, int c) {
+		SortedSet<Integer> ofVar = constants.get(var);
+		if (ofVar == null) {
+			ofVar = new TreeSet<Integer>();
+			constants.put(var, ofVar);
+		}
+		ofVar.add(c);
+	}
+
+	/**
+	 *
+	 * @param pack index of a pack
+	 * @return threshold constraints over the environment of pack
+	 */
+	public Lincons1[] get(int pack) {
+		return this.thresholds[pack];
+	}
+}
@@ -0,0 +1,278 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import apron.ApronException;
+import soot.Unit;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * Fixpoint engine for {@link NumericalAnalysis}, following the recursive
+ * iteration strategy of Bourdoncle over a {@link WeakTopologicalOrder}.
+ *
+ * Each component (loop) is iterated until the state before its head is
+ * stable, before any unit after it is analyzed, so that inner loops stabilize
+ * once per iteration of the outer loop. Widening is only applied at component
+ * heads, and units whose incoming state did not change are not re-evaluated.
+ *
+ * Once all components are stable, a bounded number of descending (narrowing)
+ * passes recompute every state from its predecessors without widening, which
+ * recovers bounds lost by widening. The properties are only checked on the
+ * resulting final states.
+ *
+ * The descending passes and the checks also run after Soot's worklist
+ * iteration (see {@link #narrow()}), starting from the states it reached.
+ */
+class WtoFixpoint {
+
+	private static final Logger logger = LoggerFactory.getLogger(WtoFixpoint.class);
+
+	private final NumericalAnalysis analysis;
+
+	private final UnitGraph graph;
+
+	/**
+	 * Dense numbering of the units, indexing the arrays below
+	 */
+	private final UnitNumbering numbering;
+
+	private final WeakTopologicalOrder wto;
+
+	/**
+	 * Widen at a component head from its wideningDelay-th update on
+	 */
+	private final int wideningDelay;
+
+	/**
+	 * Maximal number of descending passes
+	 */
+	private final int narrowingPasses;
+
+	/**
+	 * Whether each unit is an entry of the method
+	 */
+	private final boolean[] entries;
+
+	/**
+	 * State before each evaluated unit
+	 */
+	private final NumericalStateWrapper[] before;
+
+	/**
+	 * State after each evaluated unit, when falling through to the next unit
+	 */
+	private final NumericalStateWrapper[] fallOut;
+
+	/**
+	 * State after each evaluated unit, when jumping to its target
+	 */
+	private final NumericalStateWrapper[] branchOut;
+
+	/**
+	 * Number of updates of each component head
+	 */
+	private final int[] visits;
+
+	/**
+	 * Number of evaluated units, for logging
+	 */
+	private int evaluations = 0;
+
+	/**
+	 *
+	 * @param analysis        analysis providing the transfer functions
+	 * @param graph           control flow graph of the analyzed method
+	 * @param numbering       numbering of the units of graph
+	 * @param wto             weak topological order of graph
+	 * @param wideningDelay   widen at a component head from its
+	 *                        wideningDelay-th update on
+	 * @param narrowingPasses maximal number of descending passes
+	 */
+	WtoFixpoint(NumericalAnalysis analysis, UnitGraph graph, UnitNumbering numbering,
+			WeakTopologicalOrder wto, int wideningDelay, int narrowingPasses) {
+		this.analysis = analysis;
+		this.graph = graph;
+		this.numbering = numbering;
+		this.wto = wto;
+		this.wideningDelay = wideningDelay;
+		this.narrowingPasses = narrowingPasses;
+		this.entries = new boolean[numbering.size()];
+		for (Unit head : graph.getHeads()) {
+			this.entries[numbering.getNumber(head)] = true;
+		}
+		this.before = new NumericalStateWrapper[numbering.size()];
+		this.fallOut = new NumericalStateWrapper[numbering.size()];
+		this.branchOut = new NumericalStateWrapper[numbering.size()];
+		this.visits = new int[numbering.size()];
+	}
+
+	/**
+	 * Run the analysis to a fixpoint, then descend and check the properties
+	 */
+	void run() {
+		logger.debug("Weak topological order: {}", this.wto);
+		try {
+			this.iterate(this.wto.getElements());
+			this.finish();
+		} catch (ApronException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Descend from the fixpoint reached by Soot's worklist iteration (see
+	 * {@link NumericalAnalysis#doAnalysis()}), and check the properties
+	 */
+	void narrow() {
+		for (int id = 0; id < this.before.length; id++) {
+			Unit u = this.numbering.getUnit(id);
+			this.before[id] = this.analysis.getFlowBefore(u);
+			if (u.fallsThrough()) {
+				this.fallOut[id] = this.analysis.getFallFlowAfter(u);
+			}
+			if (u.branches()) {
+				List<NumericalStateWrapper> branchOuts = this.analysis.getBranchFlowAfter(u);
+				if (!branchOuts.isEmpty()) {
+					this.branchOut[id] = branchOuts.get(0);
+				}
+			}
+		}
+		try {
+			this.finish();
+		} catch (ApronException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Descend from the fixpoint, then check the properties on the final states
+	 */
+	private void finish() throws ApronException {
+		int pass = 0;
+		while (pass < this.narrowingPasses && this.descend(this.wto.getElements())) {
+			pass++;
+		}
+		logger.debug("Reached fixpoint after {} evaluations of {} units and {} descending passes", this.evaluations,
+				this.graph.size(), pass);
+
+		this.analysis.setCheckingEnabled(true);
+		for (int id = 0; id < this.before.length; id++) {
+			if (this.before[id] != null) {
+				this.analysis.checkProperties(this.numbering.getUnit(id), this.before[id]);
+			}
+		}
+	}
+
+	private void iterate(List<WeakTopologicalOrder.Element> elements) throws ApronException {
+		for (WeakTopologicalOrder.Element e : elements) {
+			if (!e.isComponent()) {
+				this.update(e.getHeadNumber(), false);
+				continue;
+			}
+			// stabilize the component
+			this.update(e.getHeadNumber(), true);
+			do {
+				this.iterate(e.getBody());
+			} while (this.update(e.getHeadNumber(), true));
+		}
+	}
+
+	/**
+	 * A descending pass over elements: recompute each state once from its
+	 * predecessors, without widening
+	 * 
+	 * @param elements
+	 * @return true if any state changed
+	 */
+	private boolean descend(List<WeakTopologicalOrder.Element> elements) throws ApronException {
+		boolean changed = false;
+		for (WeakTopologicalOrder.Element e : elements) {
+			changed |= this.update(e.getHeadNumber(), false);
+			if (e.isComponent()) {
+				changed |= this.descend(e.getBody());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Recompute the state before a unit from its predecessors and, if it
+	 * changed, evaluate the unit
+	 *
+	 * @param id     number of the unit to update
+	 * @param isHead true if the unit is the head of a component during the
+	 *               ascending iteration, which joins (or widens) with its
+	 *               previous state
+	 * @return true if the state before the unit changed
+	 */
+	private boolean update(int id, boolean isHead) throws ApronException {
+		Unit u = this.numbering.getUnit(id);
+		NumericalStateWrapper in = this.join(id);
+		NumericalStateWrapper old = this.before[id];
+		if (old != null && isHead) {
+			this.visits[id]++;
+			in = old.joinCopy(in);
+			if (this.visits[id] >= this.wideningDelay) {
+				AnalysisTrace.log("Widening at {}", u);
+				in = this.analysis.widening(old, in);
+			}
+		}
+		if (old != null && old.equals(in)) {
+			return false;
+		}
+		this.before[id] = in;
+
+		List<NumericalStateWrapper> fallOuts = u.fallsThrough()
+				? Collections.singletonList(this.analysis.newInitialFlow())
+				: Collections.<NumericalStateWrapper>emptyList();
+		List<NumericalStateWrapper> branchOuts = u.branches()
+				? Collections.singletonList(this.analysis.newInitialFlow())
+				: Collections.<NumericalStateWrapper>emptyList();
+		this.analysis.flowThrough(in, u, fallOuts, branchOuts);
+		this.evaluations++;
+		if (!fallOuts.isEmpty()) {
+			this.fallOut[id] = fallOuts.get(0);
+		}
+		if (!branchOuts.isEmpty()) {
+			this.branchOut[id] = branchOuts.get(0);
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @param id number of a unit
+	 * @return the join of the states flowing into the unit
+	 */
+	private NumericalStateWrapper join(int id) throws ApronException {
+		List<NumericalStateWrapper> incoming = new ArrayList<NumericalStateWrapper>();
+		if (this.entries[id]) {
+			incoming.add(this.analysis.entryInitialFlow());
+		}
+		int[] preds = this.numbering.getPreds(id);
+		int[] edges = this.numbering.getPredEdges(id);
+		for (int i = 0; i < preds.length; i++) {
+			NumericalStateWrapper out = this.fallOut[preds[i]];
+			if (out != null && (edges[i] & UnitNumbering.FALL_THROUGH) != 0) {
+				incoming.add(out);
+			}
+			out = this.branchOut[preds[i]];
+			if (out != null && (edges[i] & UnitNumbering.BRANCH) != 0) {
+				incoming.add(out);
+			}
+		}
+		if (incoming.isEmpty()) {
+			return this.analysis.newInitialFlow();
+		}
+		NumericalStateWrapper ret = incoming.get(0);
+		for (int i = 1; i < incoming.size(); i++) {
+			ret = ret.joinCopy(incoming.get(i));
+		}
+		return ret;
+	}
+}
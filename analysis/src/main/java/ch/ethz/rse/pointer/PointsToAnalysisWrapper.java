@@ -1,5 +1,6 @@
 package ch.ethz.rse.pointer;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedList;
 
@@ -19,6 +20,16 @@ public class PointsToAnalysisWrapper {
 
 	private final PointsToAnalysis pointsToAnalysis;
 
+	/**
+	 * Reusable visitor of each thread, see {@link #getNodeNumbers(Local, BitSet)}
+	 */
+	private static final ThreadLocal<P2SetNumberCollector> numberCollectors = new ThreadLocal<P2SetNumberCollector>() {
+		@Override
+		protected P2SetNumberCollector initialValue() {
+			return new P2SetNumberCollector();
+		}
+	};
+
 	public PointsToAnalysisWrapper(SootClass c) {
 		// fetch results from previously ran points-to-analysis
 		this.pointsToAnalysis = Scene.v().getPointsToAnalysis();
@@ -36,6 +47,34 @@ public class PointsToAnalysisWrapper {
 		return c.getNodes();
 	}
 
+	/**
+	 * Like {@link #getNodes(Local)}, but without allocating
+	 * 
+	 * @param base    represents a local variable
+	 * @param numbers receives the numbers of the nodes base could point to (see
+	 *                {@link Node#getNumber()})
+	 */
+	public void getNodeNumbers(Local base, BitSet numbers) {
+		PointsToSetInternal pts = (PointsToSetInternal) this.pointsToAnalysis.reachingObjects(base);
+		P2SetNumberCollector c = numberCollectors.get();
+		c.numbers = numbers;
+		pts.forall(c);
+		c.numbers = null;
+	}
+
+}
+
+/**
+ * Adds the numbers of visited nodes to a {@link BitSet}
+ */
+class P2SetNumberCollector extends P2SetVisitor {
+
+	BitSet numbers;
+
+	@Override
+	public void visit(Node node) {
+		numbers.set(node.getNumber());
+	}
 }
 
 /**
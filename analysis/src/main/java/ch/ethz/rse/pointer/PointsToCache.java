@@ -0,0 +1,98 @@
+package ch.ethz.rse.pointer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.utils.Configuration;
+import soot.SootClass;
+
+/**
+ * Caches {@link PointsToSummary}s in memory and under
+ * <code>target/pointsto-cache</code>, keyed by the content hash of the class
+ * file, so that verifying an unchanged class again does not run SPARK
+ */
+public class PointsToCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(PointsToCache.class);
+
+	/**
+	 * Summaries of this process, keyed by content hash
+	 */
+	private static final Map<String, PointsToSummary> summaries = new ConcurrentHashMap<String, PointsToSummary>();
+
+	/**
+	 * 
+	 * @param hash content hash of the class file
+	 * @return the cached summary, or null if there is none
+	 */
+	public static PointsToSummary get(String hash) {
+		PointsToSummary summary = summaries.get(hash);
+		if (summary != null) {
+			return summary;
+		}
+		File f = PointsToCache.getFile(hash);
+		if (!f.exists()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
+			summary = (PointsToSummary) in.readObject();
+			summaries.put(hash, summary);
+			return summary;
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			logger.warn("Ignoring unreadable points-to cache entry {}: {}", f, e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * 
+	 * @param hash    content hash of the class file
+	 * @param summary points-to results for the class
+	 */
+	public static void put(String hash, PointsToSummary summary) {
+		summaries.put(hash, summary);
+		File f = PointsToCache.getFile(hash);
+		File tmp = new File(f.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+		f.getParentFile().mkdirs();
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+			out.writeObject(summary);
+		} catch (IOException e) {
+			logger.warn("Could not write points-to cache entry {}: {}", f, e.toString());
+			tmp.delete();
+			return;
+		}
+		// publish atomically, concurrent readers never see partial entries
+		if (!tmp.renameTo(f)) {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * 
+	 * @param c       class currently loaded into Soot
+	 * @param summary cached points-to results for c
+	 * @return the restored points-to results, or null if summary does not match
+	 *         c
+	 */
+	public static PointsToInitializer restore(SootClass c, PointsToSummary summary) {
+		try {
+			return new PointsToInitializer(c, summary);
+		} catch (IllegalArgumentException e) {
+			logger.warn("Ignoring points-to cache entry for {}: {}", c.getName(), e.getMessage());
+			return null;
+		}
+	}
+
+	private static File getFile(String hash) {
+		return new File(Configuration.props.getBasedir() + "/target/pointsto-cache/" + hash + ".ser");
+	}
+}
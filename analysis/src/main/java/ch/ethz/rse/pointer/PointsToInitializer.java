@@ -1,10 +1,18 @@
 package ch.ethz.rse.pointer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +21,8 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import apron.Texpr1Node;
+import ch.ethz.rse.utils.Configuration;
 import ch.ethz.rse.utils.Constants;
-import soot.Body;
 import soot.Local;
 import soot.SootClass;
 import soot.SootHelper;
@@ -48,65 +56,271 @@ public class PointsToInitializer {
 	private final SootClass c;
 
 	/**
-	 * Maps abstract object indices to initializers
+	 * Maps abstract object (SPARK node) numbers to initializers
 	 */
-	private final Map<Node, StoreInitializer> initializers = new HashMap<Node, StoreInitializer>();
+	private StoreInitializer[] initializers = new StoreInitializer[0];
+
+	/**
+	 * Scratch set of node numbers for {@link #pointsToInternal(Local)}
+	 */
+	private final BitSet nodeNumbers = new BitSet();
 
 	/**
 	 * All {@link StoreInitializer}s, keyed by method
 	 */
 	private final Multimap<SootMethod, StoreInitializer> perMethod = HashMultimap.create();
 
+	/**
+	 * For each local variable of type {@link Constants#StoreClassName} in an
+	 * analyzed method (and each other local queried by {@link #pointsTo(Local)}),
+	 * the {@link StoreInitializer}s it may point to
+	 */
+	private final Map<Local, List<StoreInitializer>> perLocal = new IdentityHashMap<Local, List<StoreInitializer>>();
+
+	/**
+	 * {@link StoreIndex} of each analyzed method, built on first use
+	 */
+	private final Map<SootMethod, StoreIndex> perMethodIndex = new HashMap<SootMethod, StoreIndex>();
+
 	public PointsToInitializer(SootClass c) {
 		this.c = c;
 		logger.debug("Running points-to analysis on " + c.getName());
 		this.pointsTo = new PointsToAnalysisWrapper(c);
 		logger.debug("Analyzing initializers in " + c.getName());
 		this.analyzeAllInitializers();
+		this.analyzeAllStoreLocals();
 	}
 
-	private void analyzeAllInitializers() {
-		for (SootMethod method : this.c.getMethods()) {
+	/**
+	 * Restore the results of a previous points-to analysis of the same class,
+	 * without running SPARK
+	 * 
+	 * @param c       class for which we are running points-to
+	 * @param summary result of {@link #summarize()} on the same class
+	 * @throws IllegalArgumentException if summary does not match c, e.g., does
+	 *                                  not cover a local of an analyzed method
+	 */
+	public PointsToInitializer(SootClass c, PointsToSummary summary) {
+		this.c = c;
+		this.pointsTo = null;
+		logger.debug("Restoring points-to results for " + c.getName());
+		List<StoreInitializer> stores = new ArrayList<StoreInitializer>();
+		Map<SootMethod, List<Unit>> units = new HashMap<SootMethod, List<Unit>>();
+		for (PointsToSummary.InitializerSummary i : summary.initializers) {
+			SootMethod method = c.getMethodUnsafe(i.method);
+			if (method == null) {
+				throw new IllegalArgumentException("Stale points-to summary, no method " + i.method);
+			}
+			List<Unit> body = units.get(method);
+			if (body == null) {
+				body = new ArrayList<Unit>(method.retrieveActiveBody().getUnits());
+				units.put(method, body);
+			}
+			if (i.unitIndex >= body.size() || !(body.get(i.unitIndex) instanceof JInvokeStmt)) {
+				throw new IllegalArgumentException("Stale points-to summary for " + method);
+			}
+			JInvokeStmt stmt = (JInvokeStmt) body.get(i.unitIndex);
+			if (!(stmt.getInvokeExpr() instanceof JSpecialInvokeExpr)) {
+				throw new IllegalArgumentException("Stale points-to summary for " + method);
+			}
+			Value storeName = ((JSpecialInvokeExpr) stmt.getInvokeExpr()).getBase();
+			StoreInitializer store = new StoreInitializer(stmt, storeName.hashCode(), i.trolleySize, i.reserveSize);
+			stores.add(store);
+			perMethod.put(method, store);
+		}
+		for (SootMethod method : this.getAnalyzedMethods()) {
+			Map<String, int[]> m = summary.pointsTo.get(method.getSubSignature());
+			if (m == null) {
+				throw new IllegalArgumentException("Points-to summary does not cover " + method);
+			}
+			for (Local local : method.retrieveActiveBody().getLocals()) {
+				int[] indices = m.get(local.getName());
+				if (indices == null) {
+					throw new IllegalArgumentException("Points-to summary does not cover " + local + " in " + method);
+				}
+				List<StoreInitializer> targets = new ArrayList<StoreInitializer>(indices.length);
+				for (int index : indices) {
+					if (index >= stores.size()) {
+						throw new IllegalArgumentException("Stale points-to summary for " + method);
+					}
+					targets.add(stores.get(index));
+				}
+				perLocal.put(local, targets);
+			}
+		}
+	}
 
+	/**
+	 * 
+	 * @return the methods of {@link #c} that are analyzed (all but
+	 *         constructors)
+	 */
+	private List<SootMethod> getAnalyzedMethods() {
+		List<SootMethod> methods = new ArrayList<SootMethod>();
+		for (SootMethod method : this.c.getMethods()) {
 			if (method.getName().contains("<init>")) {
 				// skip constructor of the class
 				continue;
 			}
+			methods.add(method);
+		}
+		return methods;
+	}
 
-			// populate data structures perMethod and initializers
-			// TODO: FILL THIS OUT
+	/**
+	 * Populate {@link #perMethod} and {@link #initializers}. The methods are
+	 * scanned for constructor calls of stores in parallel (see
+	 * {@link Configuration#getAnalysisThreads()}), and the results are merged in
+	 * method order on the calling thread, which also queries SPARK.
+	 */
+	private void analyzeAllInitializers() {
+		List<SootMethod> methods = this.getAnalyzedMethods();
+		List<List<StoreInitializer>> found = this.findAllInitializers(methods);
+		for (int i = 0; i < methods.size(); i++) {
+			for (StoreInitializer store : found.get(i)) {
+				JSpecialInvokeExpr expr = (JSpecialInvokeExpr) store.getStatement().getInvokeExpr();
+				for (Node n : getAllocationNodes(expr)) {
+					setInitializer(n.getNumber(), store);
+				}
+				perMethod.put(methods.get(i), store);
+			}
+		}
+		logger.debug("Found {} initializers in {} methods", perMethod.size(), methods.size());
+	}
 
-			UnitGraph g = SootHelper.getUnitGraph(method);
-			for (Unit u : g){
-				if(u instanceof JInvokeStmt){
-					logger.info("Found JInvokeStmt: ?" + u);
-					JInvokeStmt stmt = (JInvokeStmt) u;
+	/**
+	 * Bodies and graphs are built on the calling thread, as Soot's scene is not
+	 * thread-safe, and workers only scan them.
+	 * 
+	 * @param methods methods to scan
+	 * @return for each of methods, the initializers of the stores it constructs
+	 */
+	private List<List<StoreInitializer>> findAllInitializers(List<SootMethod> methods) {
+		List<UnitGraph> graphs = new ArrayList<UnitGraph>();
+		for (SootMethod method : methods) {
+			graphs.add(SootHelper.getUnitGraph(method));
+		}
+		List<List<StoreInitializer>> ret = new ArrayList<List<StoreInitializer>>();
+		int threads = Math.min(Configuration.props.getAnalysisThreads(), methods.size());
+		if (threads <= 1) {
+			for (UnitGraph graph : graphs) {
+				ret.add(PointsToInitializer.findInitializers(graph));
+			}
+			return ret;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<StoreInitializer>>> futures = new ArrayList<Future<List<StoreInitializer>>>();
+			for (final UnitGraph graph : graphs) {
+				futures.add(pool.submit(new Callable<List<StoreInitializer>>() {
+					@Override
+					public List<StoreInitializer> call() {
+						return PointsToInitializer.findInitializers(graph);
+					}
+				}));
+			}
+			for (Future<List<StoreInitializer>> future : futures) {
+				ret.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return ret;
+	}
+
+	/**
+	 * Only reads the units of graph, without resolving methods in the scene or
+	 * querying SPARK, and may hence run on any thread
+	 * 
+	 * @param graph control flow graph of the method to scan
+	 * @return the initializers of the stores the method constructs
+	 */
+	private static List<StoreInitializer> findInitializers(UnitGraph graph) {
+		List<StoreInitializer> ret = new ArrayList<StoreInitializer>();
+		for (Unit u : graph) {
+			if (!(u instanceof JInvokeStmt)) {
+				continue;
+			}
+			JInvokeStmt stmt = (JInvokeStmt) u;
+			if (stmt.getInvokeExpr().getMethodRef().getName().contains("<init>")) {
+				InvokeExpr expr = stmt.getInvokeExpr();
+				IntConstant arg0 = (IntConstant) expr.getArg(0);
+				IntConstant arg1 = (IntConstant) expr.getArg(1);
+				Value storeName = (expr.getUseBoxes().get(2)).getValue();
+				ret.add(new StoreInitializer(stmt, storeName.hashCode(), arg0.value, arg1.value));
+			}
+		}
+		return ret;
+	}
 
-					if(stmt.getInvokeExpr().getMethod().getName().contains("<init>")){
-						InvokeExpr expr = stmt.getInvokeExpr();
-						IntConstant arg0 = (IntConstant) expr.getArg(0);
-						IntConstant arg1 = (IntConstant) expr.getArg(1);
-						Value storeName = (expr.getUseBoxes().get(2)).getValue();
+	private void setInitializer(int nodeNumber, StoreInitializer store) {
+		if (nodeNumber >= this.initializers.length) {
+			this.initializers = Arrays.copyOf(this.initializers, Math.max(nodeNumber + 1, 2 * this.initializers.length));
+		}
+		this.initializers[nodeNumber] = store;
+	}
 
+	/**
+	 * Populate {@link #perLocal}
+	 */
+	private void analyzeAllStoreLocals() {
+		for (SootMethod method : this.getAnalyzedMethods()) {
+			for (Local local : method.retrieveActiveBody().getLocals()) {
+				if (local.getType().toString().equals(Constants.StoreClassName)) {
+					perLocal.put(local, this.pointsToInternal(local));
+				}
+			}
+		}
+	}
 
-						StoreInitializer store = new StoreInitializer(stmt, storeName.hashCode(), arg0.value, arg1.value);
-						
-						// add to initializers
-						logger.error("error here");
+	/**
+	 * 
+	 * @return the results of this analysis in a form that does not reference
+	 *         Soot or SPARK objects, so that it can be stored and restored by
+	 *         {@link #PointsToInitializer(SootClass, PointsToSummary)}
+	 */
+	public synchronized PointsToSummary summarize() {
+		PointsToSummary summary = new PointsToSummary();
+		List<SootMethod> methods = this.getAnalyzedMethods();
 
-						Collection<Node> allocNodes = getAllocationNodes((JSpecialInvokeExpr) expr);
-						for(Node n: allocNodes){
-							initializers.put(n, store);
-						}
+		// number the initializers across the class, as locals may point to
+		// stores created in other methods
+		Map<StoreInitializer, Integer> storeIndex = new IdentityHashMap<StoreInitializer, Integer>();
+		for (SootMethod method : methods) {
+			Map<Unit, Integer> unitIndex = new IdentityHashMap<Unit, Integer>();
+			for (Unit u : method.retrieveActiveBody().getUnits()) {
+				unitIndex.put(u, unitIndex.size());
+			}
+			for (StoreInitializer store : this.perMethod.get(method)) {
+				storeIndex.put(store, summary.initializers.size());
+				summary.initializers.add(new PointsToSummary.InitializerSummary(method.getSubSignature(),
+						unitIndex.get(store.getStatement()), store.trolley_size, store.reserve_size));
+			}
+		}
 
-						// add to perMethod
-						perMethod.put(method, store);
+		for (SootMethod method : methods) {
+			Map<String, int[]> m = new HashMap<String, int[]>();
+			for (Local local : method.retrieveActiveBody().getLocals()) {
+				List<StoreInitializer> targets = this.pointsTo(local);
+				int[] indices = new int[targets.size()];
+				for (int i = 0; i < indices.length; i++) {
+					Integer index = storeIndex.get(targets.get(i));
+					if (index == null) {
+						throw new IllegalStateException("Unknown initializer " + targets.get(i) + " of " + local);
 					}
+					indices[i] = index;
 				}
+				m.put(local.getName(), indices);
 			}
-
+			summary.pointsTo.put(method.getSubSignature(), m);
 		}
-		logger.info("Done filling out perMethod and Initializers");
+		return summary;
 	}
 
 	// TODO: MAYBE FILL THIS OUT: add convenience methods
@@ -115,11 +329,42 @@ public class PointsToInitializer {
 		return this.perMethod.get(method);
 	}
 
-	public List<StoreInitializer> pointsTo(Local base) {
-		Collection<Node> nodes = this.pointsTo.getNodes(base);
-		List<StoreInitializer> initializers = new LinkedList<StoreInitializer>();
-		for (Node node : nodes) {
-			StoreInitializer initializer = this.initializers.get(node);
+	/**
+	 * 
+	 * @param method analyzed method
+	 * @return the initializers relevant to each statement of method
+	 */
+	public synchronized StoreIndex getStoreIndex(SootMethod method) {
+		StoreIndex index = this.perMethodIndex.get(method);
+		if (index == null) {
+			index = new StoreIndex(method, this);
+			this.perMethodIndex.put(method, index);
+		}
+		return index;
+	}
+
+	public synchronized List<StoreInitializer> pointsTo(Local base) {
+		List<StoreInitializer> initializers = this.perLocal.get(base);
+		if (initializers != null) {
+			return initializers;
+		}
+		if (this.pointsTo == null) {
+			// restored from a summary, which covers all locals of analyzed
+			// methods, so this is not one of them
+			throw new IllegalStateException("No restored points-to results for " + base);
+		}
+		initializers = this.pointsToInternal(base);
+		this.perLocal.put(base, initializers);
+		return initializers;
+	}
+
+	private List<StoreInitializer> pointsToInternal(Local base) {
+		this.nodeNumbers.clear();
+		this.pointsTo.getNodeNumbers(base, this.nodeNumbers);
+		List<StoreInitializer> initializers = new ArrayList<StoreInitializer>();
+		for (int n = this.nodeNumbers.nextSetBit(0); n >= 0 && n < this.initializers.length; n = this.nodeNumbers
+				.nextSetBit(n + 1)) {
+			StoreInitializer initializer = this.initializers[n];
 			if (initializer != null) {
 				// ignore nodes that were not initialized
 				initializers.add(initializer);
@@ -0,0 +1,57 @@
+package ch.ethz.rse.pointer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of {@link PointsToInitializer} in a form that does not reference Soot
+ * or SPARK objects. Statements are identified by their position in the method
+ * body and local variables by their name, which are stable as long as the
+ * bytecode of the class does not change.
+ */
+public class PointsToSummary implements Serializable {
+
+	private static final long serialVersionUID = 2L;
+
+	/**
+	 * All {@link StoreInitializer}s in the class
+	 */
+	final List<InitializerSummary> initializers = new ArrayList<InitializerSummary>();
+
+	/**
+	 * For each analyzed method (keyed by sub-signature) and each of its local
+	 * variables (keyed by name), indices into {@link #initializers} the local
+	 * may point to. Stores may be created in another method than the one
+	 * referencing them (e.g., when passed as a parameter).
+	 */
+	final Map<String, Map<String, int[]>> pointsTo = new HashMap<String, Map<String, int[]>>();
+
+	static class InitializerSummary implements Serializable {
+
+		private static final long serialVersionUID = 2L;
+
+		/**
+		 * sub-signature of the method holding the initializing statement
+		 */
+		final String method;
+
+		/**
+		 * position of the initializing statement in the method body
+		 */
+		final int unitIndex;
+
+		final int trolleySize;
+
+		final int reserveSize;
+
+		InitializerSummary(String method, int unitIndex, int trolleySize, int reserveSize) {
+			this.method = method;
+			this.unitIndex = unitIndex;
+			this.trolleySize = trolleySize;
+			this.reserveSize = reserveSize;
+		}
+	}
+}
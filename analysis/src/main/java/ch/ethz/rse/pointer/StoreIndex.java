@@ -0,0 +1,110 @@
+package ch.ethz.rse.pointer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.InvokeExpr;
+import soot.jimple.internal.JInvokeStmt;
+import soot.jimple.internal.JVirtualInvokeExpr;
+
+/**
+ * Index of the {@link StoreInitializer}s relevant to each statement of a
+ * method, built once from {@link PointsToInitializer} so that transfer
+ * functions need not scan all initializers of the method.
+ */
+public class StoreIndex {
+
+	/**
+	 * For each call of <code>get_delivery</code>, the initializers of the
+	 * stores its receiver may point to
+	 */
+	private final Map<Unit, List<StoreInitializer>> receivers = new IdentityHashMap<Unit, List<StoreInitializer>>();
+
+	/**
+	 * For each call of <code>get_delivery</code>, the distinct labels of
+	 * {@link #receivers}
+	 */
+	private final Map<Unit, String[]> receiverLabels = new IdentityHashMap<Unit, String[]>();
+
+	/**
+	 * For each constructor call of a store, its initializer
+	 */
+	private final Map<Unit, StoreInitializer> initializers = new IdentityHashMap<Unit, StoreInitializer>();
+
+	/**
+	 *
+	 * @param method   method to index
+	 * @param pointsTo points to analysis for method
+	 */
+	public StoreIndex(SootMethod method, PointsToInitializer pointsTo) {
+		Set<StoreInitializer> ofMethod = Collections
+				.newSetFromMap(new IdentityHashMap<StoreInitializer, Boolean>());
+		for (StoreInitializer store : pointsTo.getInitializers(method)) {
+			ofMethod.add(store);
+			this.initializers.put(store.getStatement(), store);
+		}
+
+		for (Unit u : method.retrieveActiveBody().getUnits()) {
+			if (!(u instanceof JInvokeStmt)) {
+				continue;
+			}
+			InvokeExpr invokeExpr = ((JInvokeStmt) u).getInvokeExpr();
+			if (!(invokeExpr instanceof JVirtualInvokeExpr) || invokeExpr.getArgCount() == 0) {
+				continue;
+			}
+			Value base = ((JVirtualInvokeExpr) invokeExpr).getBase();
+			List<StoreInitializer> stores = new ArrayList<StoreInitializer>();
+			Set<String> labels = new LinkedHashSet<String>();
+			if (base instanceof Local) {
+				for (StoreInitializer store : pointsTo.pointsTo((Local) base)) {
+					// stores of other methods are not tracked by the analysis
+					if (ofMethod.contains(store)) {
+						stores.add(store);
+						labels.add(store.getUniqueLabel());
+					}
+				}
+			}
+			this.receivers.put(u, stores);
+			this.receiverLabels.put(u, labels.toArray(new String[labels.size()]));
+		}
+	}
+
+	/**
+	 *
+	 * @param invoke call of <code>get_delivery</code>
+	 * @return the initializers of the stores the receiver of invoke may point to
+	 */
+	public List<StoreInitializer> getReceivers(Unit invoke) {
+		List<StoreInitializer> ret = this.receivers.get(invoke);
+		return ret == null ? Collections.<StoreInitializer>emptyList() : ret;
+	}
+
+	/**
+	 *
+	 * @param invoke call of <code>get_delivery</code>
+	 * @return the distinct labels of {@link #getReceivers(Unit)}
+	 */
+	public String[] getReceiverLabels(Unit invoke) {
+		String[] ret = this.receiverLabels.get(invoke);
+		return ret == null ? new String[0] : ret;
+	}
+
+	/**
+	 *
+	 * @param init constructor call
+	 * @return the initializer of the store constructed by init, or null if init
+	 *         does not construct a store
+	 */
+	public StoreInitializer getInitializer(Unit init) {
+		return this.initializers.get(init);
+	}
+}
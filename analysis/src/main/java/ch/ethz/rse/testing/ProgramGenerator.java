@@ -0,0 +1,252 @@
+package ch.ethz.rse.testing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.utils.Configuration;
+import ch.ethz.rse.utils.Constants;
+
+/**
+ * Generates (and compiles) synthetic test classes of configurable size, to
+ * measure how the analysis scales in the number of stores, deliveries, loops
+ * and integer locals.
+ *
+ * A generated class has one method that creates the stores, assigns a
+ * constant between 0 and the trolley size to each integer local, and nests
+ * loops with constant bounds. Deliveries of locals are spread round-robin over
+ * stores, locals and loop levels (level 0 is outside all loops). The expected
+ * results are exact and written in the format parsed by
+ * {@link VerificationTestCaseCollector}.
+ */
+public class ProgramGenerator {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProgramGenerator.class);
+
+	/**
+	 * Package of generated classes
+	 */
+	public static final String generatedPackage = "ch.ethz.rse.generated";
+
+	private final String name;
+	private final int stores;
+	private final int calls;
+	private final int loops;
+	private final int locals;
+	private final int bound;
+	private final int trolleySize;
+	private final int reserveSize;
+
+	/**
+	 *
+	 * @param name        unqualified name of the generated class
+	 * @param stores      number of stores
+	 * @param calls       number of calls to get_delivery
+	 * @param loops       depth of the loop nest
+	 * @param locals      number of integer locals passed to get_delivery
+	 * @param bound       number of iterations of each loop
+	 * @param trolleySize trolley size of every store
+	 * @param reserveSize reserve size of every store
+	 */
+	public ProgramGenerator(String name, int stores, int calls, int loops, int locals, int bound, int trolleySize,
+			int reserveSize) {
+		if (stores < 1 || calls < 0 || loops < 0 || locals < 1 || bound < 0 || trolleySize < 0) {
+			throw new IllegalArgumentException("Invalid program size");
+		}
+		this.name = name;
+		this.stores = stores;
+		this.calls = calls;
+		this.loops = loops;
+		this.locals = locals;
+		this.bound = bound;
+		this.trolleySize = trolleySize;
+		this.reserveSize = reserveSize;
+	}
+
+	/**
+	 *
+	 * @return fully qualified name of the generated class
+	 */
+	public String getPackageName() {
+		return generatedPackage + "." + this.name;
+	}
+
+	/**
+	 *
+	 * @param call index of a call to get_delivery
+	 * @return loop level of the call (0 is outside all loops)
+	 */
+	private int getLevel(int call) {
+		return call % (this.loops + 1);
+	}
+
+	/**
+	 *
+	 * @param local index of an integer local
+	 * @return the constant assigned to the local
+	 */
+	private int getValue(int local) {
+		return local % (this.trolleySize + 1);
+	}
+
+	/**
+	 *
+	 * @param property
+	 * @return true if property holds for the generated class
+	 */
+	public boolean isSafe(VerificationProperty property) {
+		switch (property) {
+		case NON_NEGATIVE:
+			// all locals are in [0, trolleySize]
+			return true;
+		case FITS_IN_TROLLEY:
+			return true;
+		case FITS_IN_RESERVE:
+			long[] received = new long[this.stores];
+			for (int call = 0; call < this.calls; call++) {
+				long times = 1;
+				for (int level = 0; level < this.getLevel(call); level++) {
+					times *= this.bound;
+				}
+				received[call % this.stores] += times * this.getValue(call % this.locals);
+			}
+			for (long r : received) {
+				if (r > this.reserveSize) {
+					return false;
+				}
+			}
+			return true;
+		default:
+			throw new UnsupportedOperationException(property.toString());
+		}
+	}
+
+	/**
+	 *
+	 * @return Java source of the generated class
+	 */
+	public String generate() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(generatedPackage).append(";\n\n");
+		sb.append("import ").append(Constants.StoreClassName).append(";\n\n");
+		sb.append(String.format("// Generated with stores=%d calls=%d loops=%d locals=%d bound=%d%n", this.stores,
+				this.calls, this.loops, this.locals, this.bound));
+		sb.append("// expected results:\n");
+		for (VerificationProperty p : VerificationProperty.values()) {
+			sb.append("// ").append(p).append(" ").append(this.isSafe(p) ? Constants.safe : Constants.unsafe)
+					.append("\n");
+		}
+		sb.append("\npublic class ").append(this.name).append(" {\n\n");
+		sb.append("  public static void m1() {\n");
+		for (int s = 0; s < this.stores; s++) {
+			sb.append(String.format("    Store s%d = new Store(%d, %d);%n", s, this.trolleySize, this.reserveSize));
+		}
+		for (int v = 0; v < this.locals; v++) {
+			sb.append(String.format("    int v%d = %d;%n", v, this.getValue(v)));
+		}
+		for (int level = 0; level <= this.loops; level++) {
+			String indent = ProgramGenerator.indent(level);
+			if (level > 0) {
+				sb.append(String.format("%sfor (int i%d = 0; i%d < %d; i%d++) {%n", ProgramGenerator.indent(level - 1),
+						level, level, this.bound, level));
+			}
+			for (int call = 0; call < this.calls; call++) {
+				if (this.getLevel(call) == level) {
+					sb.append(String.format("%ss%d.get_delivery(v%d);%n", indent, call % this.stores,
+							call % this.locals));
+				}
+			}
+		}
+		for (int level = this.loops; level > 0; level--) {
+			sb.append(ProgramGenerator.indent(level - 1)).append("}\n");
+		}
+		sb.append("  }\n}\n");
+		return sb.toString();
+	}
+
+	private static String indent(int level) {
+		StringBuilder sb = new StringBuilder("    ");
+		for (int i = 0; i < level; i++) {
+			sb.append("  ");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Write the generated class to <code>sourceDir</code>, compile it to
+	 * <code>classesDir</code> (which must already hold the compiled
+	 * {@link Constants#StoreClassName}), and append its tasks to
+	 * <code>tasks</code>
+	 *
+	 * @param sourceDir  root directory for the generated source
+	 * @param classesDir root directory for the compiled class
+	 * @param tasks      CSV file of tasks (packageName,property,expected)
+	 * @throws IOException
+	 */
+	public void write(File sourceDir, File classesDir, File tasks) throws IOException {
+		File source = new File(sourceDir, this.getPackageName().replace(".", "/") + ".java");
+		FileUtils.writeStringToFile(source, this.generate(), Charset.defaultCharset(), false);
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new RuntimeException("No Java compiler available, run with a JDK");
+		}
+		String[] args = { "-source", "1.8", "-target", "1.8", "-nowarn", "-cp", classesDir.getPath(), "-d",
+				classesDir.getPath(), source.getPath() };
+		if (compiler.run(null, null, null, args) != 0) {
+			throw new RuntimeException("Could not compile " + source + " with " + Arrays.toString(args));
+		}
+
+		if (!tasks.exists()) {
+			FileUtils.writeStringToFile(tasks, "packageName,property,expected\n", Charset.defaultCharset(), false);
+		}
+		for (VerificationProperty p : VerificationProperty.values()) {
+			String line = this.getPackageName() + "," + p + "," + (this.isSafe(p) ? Constants.safe : Constants.unsafe);
+			FileUtils.writeStringToFile(tasks, line + "\n", Charset.defaultCharset(), true);
+		}
+		logger.info("Generated {} in {}", this.getPackageName(), classesDir);
+	}
+
+	public static void main(String[] args) throws ParseException, IOException {
+		// prepare parser
+		Options options = new Options();
+		Option nameOption = new Option("n", "name", true, "Unqualified name of the generated class");
+		nameOption.setRequired(true);
+		options.addOption(nameOption);
+		options.addOption(new Option(null, "stores", true, "Number of stores (default: 1)"));
+		options.addOption(new Option(null, "calls", true, "Number of calls to get_delivery (default: 10)"));
+		options.addOption(new Option(null, "loops", true, "Depth of the loop nest (default: 0)"));
+		options.addOption(new Option(null, "locals", true, "Number of integer locals (default: 5)"));
+		options.addOption(new Option(null, "bound", true, "Iterations of each loop (default: 3)"));
+		options.addOption(new Option(null, "trolley", true, "Trolley size of every store (default: 10)"));
+		options.addOption(new Option(null, "reserve", true, "Reserve size of every store (default: 100)"));
+		// build parser
+		CommandLineParser parser = new DefaultParser();
+		CommandLine cmd = parser.parse(options, args);
+
+		ProgramGenerator generator = new ProgramGenerator(cmd.getOptionValue("n"),
+				Integer.parseInt(cmd.getOptionValue("stores", "1")), Integer.parseInt(cmd.getOptionValue("calls", "10")),
+				Integer.parseInt(cmd.getOptionValue("loops", "0")), Integer.parseInt(cmd.getOptionValue("locals", "5")),
+				Integer.parseInt(cmd.getOptionValue("bound", "3")), Integer.parseInt(cmd.getOptionValue("trolley", "10")),
+				Integer.parseInt(cmd.getOptionValue("reserve", "100")));
+
+		String target = Configuration.props.getBasedir() + "/target";
+		generator.write(new File(target, "generated-tests"), new File(target, "test-classes"),
+				new File(target, "generated-tests/tests.csv"));
+	}
+}
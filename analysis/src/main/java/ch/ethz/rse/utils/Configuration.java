@@ -1,11 +1,14 @@
 package ch.ethz.rse.utils;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.ethz.rse.numerical.NumericalDomain;
+
 /**
  * 
  * Loads properties from the properties file. Needed to provide configuration
@@ -61,4 +64,207 @@ public class Configuration {
 		return this.prop.getProperty("BASEDIR");
 	}
 
+	/**
+	 * 
+	 * @return number of worker threads used to analyze the methods of a class
+	 *         (1 analyzes all methods sequentially on the calling thread)
+	 */
+	public int getAnalysisThreads() {
+		return Math.max(1, this.getIntProperty("ANALYSIS_THREADS", 1));
+	}
+
+	/**
+	 * 
+	 * @return number of classes verified concurrently by batch verification,
+	 *         each in its own Soot scene
+	 */
+	public int getBatchThreads() {
+		return Math.max(1, this.getIntProperty("BATCH_THREADS", 1));
+	}
+
+	/**
+	 * 
+	 * @return true if points-to results should be cached (in memory and under
+	 *         <code>target/pointsto-cache</code>), keyed by class content
+	 */
+	public boolean usePointsToCache() {
+		return this.getBooleanProperty("POINTS_TO_CACHE", false);
+	}
+
+	/**
+	 * 
+	 * @return true if only the call-graph pack (SPARK) should run, instead of
+	 *         all enabled packs
+	 */
+	public boolean useLeanPointsToAnalysis() {
+		return this.getBooleanProperty("LEAN_POINTS_TO", false);
+	}
+
+	/**
+	 * 
+	 * @return maximal number of classes a Soot scene holds before it is reset
+	 *         to load the next class (see
+	 *         {@link soot.SootHelper#loadClassAndAnalyze(ch.ethz.rse.verify.ClassToVerify)})
+	 */
+	public int getSceneClassLimit() {
+		return Math.max(1, this.getIntProperty("SCENE_CLASS_LIMIT", 32));
+	}
+
+	/**
+	 * 
+	 * @return true if verification results should be cached under
+	 *         <code>target/result-cache</code>, keyed by class content, property
+	 *         and analyzer version
+	 */
+	public boolean useResultCache() {
+		return this.getBooleanProperty("RESULT_CACHE", false);
+	}
+
+	/**
+	 * 
+	 * @return true if only methods whose Jimple body or points-to information
+	 *         changed since a previous run should be re-analyzed
+	 */
+	public boolean useIncrementalVerification() {
+		return this.getBooleanProperty("INCREMENTAL_VERIFICATION", false);
+	}
+
+	/**
+	 * 
+	 * @return numerical domains to use, from cheapest to most precise. Methods
+	 *         are analyzed with the first domain, and re-analyzed with the next
+	 *         one for properties that may be UNSAFE.
+	 */
+	public List<NumericalDomain> getNumericalDomains() {
+		return NumericalDomain.parseList(this.getProperty("NUMERICAL_DOMAIN", NumericalDomain.POLKA_STRICT.toString()));
+	}
+
+	/**
+	 * 
+	 * @return true if variables that the analysis never relates should be
+	 *         tracked in separate abstract elements, see
+	 *         {@link ch.ethz.rse.numerical.VariablePacking}
+	 */
+	public boolean useVariablePacking() {
+		return this.getBooleanProperty("VARIABLE_PACKING", false);
+	}
+
+	/**
+	 * 
+	 * @return true if integer locals should be forgotten once they are dead,
+	 *         which keeps abstract elements small
+	 */
+	public boolean forgetDeadLocals() {
+		return this.getBooleanProperty("FORGET_DEAD_LOCALS", false);
+	}
+
+	/**
+	 * 
+	 * @return true if the numerical analysis should iterate in weak topological
+	 *         order (see {@link ch.ethz.rse.numerical.WeakTopologicalOrder})
+	 *         instead of using Soot's worklist
+	 */
+	public boolean useWtoIteration() {
+		return this.getBooleanProperty("WTO_ITERATION", false);
+	}
+
+	/**
+	 * 
+	 * @return number of updates of a loop head before widening is applied
+	 */
+	public int getWideningDelay() {
+		return this.getIntProperty("WIDENING_DELAY", 6);
+	}
+
+	/**
+	 * 
+	 * @return maximal number of descending passes after widening, once the
+	 *         fixpoint is reached (with either iteration strategy, see
+	 *         {@link #useWtoIteration()}), none by default so that verdicts
+	 *         match those of plain widening
+	 */
+	public int getNarrowingPasses() {
+		return Math.max(0, this.getIntProperty("NARROWING_PASSES", 0));
+	}
+
+	/**
+	 * 
+	 * @return true if widening should keep bounds at the constants of the
+	 *         analyzed method, see
+	 *         {@link ch.ethz.rse.numerical.WideningThresholds}
+	 */
+	public boolean useThresholdWidening() {
+		return this.getBooleanProperty("THRESHOLD_WIDENING", false);
+	}
+
+	/**
+	 * 
+	 * @return true if every step of the numerical analysis should be logged,
+	 *         see {@link ch.ethz.rse.numerical.AnalysisTrace}
+	 */
+	public boolean traceAnalysis() {
+		return this.getBooleanProperty("ANALYSIS_TRACE", false);
+	}
+
+	/**
+	 * 
+	 * @return true if the number and size of live Apron abstract elements should
+	 *         be tracked, see {@link ch.ethz.rse.numerical.NativeMemory}
+	 */
+	public boolean useNativeMemoryAccounting() {
+		return this.getBooleanProperty("NATIVE_MEMORY_ACCOUNTING", false);
+	}
+
+	/**
+	 * 
+	 * @return number of live Apron abstract elements above which a garbage
+	 *         collection with finalization is forced, freeing their native
+	 *         memory (0 for no limit). Only applies with
+	 *         {@link #useNativeMemoryAccounting()}.
+	 */
+	public long getNativeElementBudget() {
+		return Math.max(0, this.getIntProperty("NATIVE_ELEMENT_BUDGET", 0));
+	}
+
+	/**
+	 * 
+	 * @return true if the unit numbering and predecessor/successor arrays of a
+	 *         method should be built together with its cached control flow
+	 *         graph, rather than on first use (see
+	 *         {@link soot.SootHelper#getUnitNumbering(soot.SootMethod)})
+	 */
+	public boolean precomputeUnitNumbering() {
+		return this.getBooleanProperty("PRECOMPUTE_UNIT_NUMBERING", false);
+	}
+
+	/**
+	 * Look up a setting, giving precedence to a JVM system property (e.g.,
+	 * <code>-DANALYSIS_THREADS=8</code>) over {@link #propertiesFile}
+	 * 
+	 * @param key          name of the setting
+	 * @param defaultValue value to use if the setting is absent
+	 * @return the configured value
+	 */
+	private String getProperty(String key, String defaultValue) {
+		String value = System.getProperty(key);
+		if (value == null) {
+			value = this.prop.getProperty(key, defaultValue);
+		}
+		return value.trim();
+	}
+
+	private boolean getBooleanProperty(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(this.getProperty(key, Boolean.toString(defaultValue)));
+	}
+
+	private int getIntProperty(String key, int defaultValue) {
+		String value = this.getProperty(key, Integer.toString(defaultValue));
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			logger.error("Invalid value {} for {}, using {}", value, key, defaultValue);
+			return defaultValue;
+		}
+	}
+
 }
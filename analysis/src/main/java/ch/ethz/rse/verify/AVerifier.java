@@ -1,52 +1,60 @@
 package ch.ethz.rse.verify;
 
 import ch.ethz.rse.VerificationProperty;
-import ch.ethz.rse.numerical.NumericalAnalysis;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import soot.SootMethod;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 
 public abstract class AVerifier {
 
 	private static final Logger logger = LoggerFactory.getLogger(AVerifier.class);
 	
-	/**
-	 * result of running numerical analysis, per method
-	 */
-	protected final Map<SootMethod, NumericalAnalysis> numericalAnalysis = new HashMap<SootMethod, NumericalAnalysis>();
-
 	/**
 	 * 
 	 * @param property
 	 * @return true if <code>property</code> is SAFE, false if it may be UNSAFE
 	 */
 	public boolean check(VerificationProperty property) {
+		return this.check(EnumSet.of(property)).get(property);
+	}
+
+	/**
+	 * Check several properties, running the numerical analysis only once
+	 * 
+	 * @param properties
+	 * @return for each of <code>properties</code>, true if it is SAFE, false if
+	 *         it may be UNSAFE
+	 */
+	public Map<VerificationProperty, Boolean> check(Set<VerificationProperty> properties) {
 		long startTime = System.nanoTime();
 
-		this.runNumericalAnalysis(property);
+		this.runNumericalAnalysis(properties);
 
-		boolean ret;
-		switch (property) {
-		case NON_NEGATIVE:
-			ret = this.checksNonNegative();
-			break;
-		case FITS_IN_TROLLEY:
-			ret = this.checkFitsInTrolley();
-			break;
-		case FITS_IN_RESERVE:
-			ret = this.checkFitsInReserve();
-			break;
-		default:
-			throw new UnsupportedOperationException(property.toString());
+		Map<VerificationProperty, Boolean> ret = new EnumMap<VerificationProperty, Boolean>(VerificationProperty.class);
+		for (VerificationProperty property : properties) {
+			switch (property) {
+			case NON_NEGATIVE:
+				ret.put(property, this.checksNonNegative());
+				break;
+			case FITS_IN_TROLLEY:
+				ret.put(property, this.checkFitsInTrolley());
+				break;
+			case FITS_IN_RESERVE:
+				ret.put(property, this.checkFitsInReserve());
+				break;
+			default:
+				throw new UnsupportedOperationException(property.toString());
+			}
 		}
 
 		long endTime = System.nanoTime();
 		long durationMilliseconds = (endTime - startTime) / 1000000;
-		logger.debug("Runtime: Checked property {} in {}ms", property, durationMilliseconds);
+		logger.debug("Runtime: Checked properties {} in {}ms", properties, durationMilliseconds);
 
 		return ret;
 	}
@@ -70,9 +78,11 @@ public abstract class AVerifier {
 	protected abstract boolean checkFitsInReserve();
 
 	/**
-	 * Populate {@link #numericalAnalysis}
+	 * Run the numerical analysis, so that the results of properties can be
+	 * queried by {@link #checksNonNegative()}, {@link #checkFitsInTrolley()} and
+	 * {@link #checkFitsInReserve()}
 	 * 
-	 * @param property the property about to be verified
+	 * @param properties the properties about to be verified
 	 */
-	protected abstract void runNumericalAnalysis(VerificationProperty property);
+	protected abstract void runNumericalAnalysis(Set<VerificationProperty> properties);
 }
@@ -2,6 +2,10 @@ package ch.ethz.rse.verify;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -73,6 +77,24 @@ public class ClassToVerify {
 		return this.classFile;
 	}
 
+	/**
+	 * 
+	 * @return SHA-256 hash of the current content of {@link #getClassFile()}, as
+	 *         a hex string
+	 */
+	public String getContentHash() {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(this.classFile.toPath()));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return this.getName();
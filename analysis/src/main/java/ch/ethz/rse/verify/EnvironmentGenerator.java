@@ -74,5 +74,13 @@ public class EnvironmentGenerator {
 		return this.env;
 	}
 
+	/**
+	 * 
+	 * @return names of all variables in {@link #getEnvironment()}
+	 */
+	public List<String> getVariables() {
+		return this.ints;
+	}
+
 
 }
@@ -0,0 +1,62 @@
+package ch.ethz.rse.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.StoreInitializer;
+import ch.ethz.rse.utils.Constants;
+import soot.Body;
+import soot.Local;
+import soot.SootMethod;
+
+/**
+ * Fingerprint of everything the numerical analysis of a method depends on:
+ * its Jimple body and the {@link StoreInitializer}s its Store locals may point
+ * to. Methods with equal fingerprints have equal verdicts.
+ */
+public class MethodFingerprint {
+
+	/**
+	 * 
+	 * @param method   method to fingerprint
+	 * @param pointsTo points to analysis for the class of method
+	 * @return SHA-256 hash of the fingerprint, as a hex string
+	 */
+	public static String compute(SootMethod method, PointsToInitializer pointsTo) {
+		Body body = method.retrieveActiveBody();
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(method.getSignature()).append('\n');
+		sb.append(body.toString()).append('\n');
+		for (Local local : body.getLocals()) {
+			if (!local.getType().toString().equals(Constants.StoreClassName)) {
+				continue;
+			}
+			// initializers are identified by their arguments and statement, as
+			// their unique numbers differ between runs
+			List<String> initializers = new ArrayList<String>();
+			for (StoreInitializer initializer : pointsTo.pointsTo(local)) {
+				initializers.add(initializer.trolley_size + "," + initializer.reserve_size + ","
+						+ initializer.getStatement());
+			}
+			Collections.sort(initializers);
+			sb.append(local.getName()).append(" -> ").append(initializers).append('\n');
+		}
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -1,33 +1,33 @@
 package ch.ethz.rse.verify;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import apron.MpqScalar;
-import apron.Texpr1CstNode;
-import apron.Texpr1Node;
-import apron.Texpr1VarNode;
 import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.main.ResultCache;
 import ch.ethz.rse.numerical.NumericalAnalysis;
-import ch.ethz.rse.numerical.NumericalStateWrapper;
-import ch.ethz.rse.pointer.StoreInitializer;
+import ch.ethz.rse.numerical.NumericalDomain;
 import ch.ethz.rse.pointer.PointsToInitializer;
-import ch.ethz.rse.utils.Constants;
-import polyglot.ast.Call;
-import soot.Local;
+import ch.ethz.rse.utils.Configuration;
 import soot.SootClass;
 import soot.SootHelper;
 import soot.SootMethod;
-import soot.Unit;
-import soot.Value;
-import soot.jimple.internal.JInvokeStmt;
-import soot.jimple.internal.JSpecialInvokeExpr;
-import soot.jimple.internal.JVirtualInvokeExpr;
-import soot.toolkits.graph.UnitGraph;
 
 /**
  * Main class handling verification
@@ -47,60 +47,206 @@ public class Verifier extends AVerifier {
 	 */
 	private final PointsToInitializer pointsTo;
 
-	// All the analyses for one program
-	private List<NumericalAnalysis> analyses = new LinkedList<>();
+	/**
+	 * Verdicts of all methods, in method order
+	 */
+	private final Map<SootMethod, Map<VerificationProperty, Boolean>> verdicts = new LinkedHashMap<SootMethod, Map<VerificationProperty, Boolean>>();
 
 	/**
 	 * 
 	 * @param c class to verify
 	 */
 	public Verifier(SootClass c) {
+		this(c, new PointsToInitializer(c));
+	}
+
+	/**
+	 * 
+	 * @param c        class to verify
+	 * @param pointsTo points to analysis for c
+	 */
+	public Verifier(SootClass c, PointsToInitializer pointsTo) {
 		logger.debug("Analyzing {}", c.getName());
 
 		this.c = c;
 
 		// pointer analysis
-		this.pointsTo = new PointsToInitializer(this.c);
+		this.pointsTo = pointsTo;
 	}
 
-	protected void runNumericalAnalysis(VerificationProperty property) {
-		// TODO: Tried -  FILL THIS OUT
-		List<SootMethod> methods = c.getMethods();
-		for(SootMethod method : methods){
-			if(method.getName().contains("<init>")){
+	protected void runNumericalAnalysis(Set<VerificationProperty> properties) {
+		verdicts.clear();
+
+		List<SootMethod> methods = new LinkedList<SootMethod>();
+		for (SootMethod method : c.getMethods()) {
+			if (method.getName().contains("<init>")) {
 				continue;
 			}
-			NumericalAnalysis a = new NumericalAnalysis(method, property, pointsTo);
-			analyses.add(a);
+			methods.add(method);
+		}
+
+		if (!Configuration.props.useIncrementalVerification()) {
+			this.runNumericalAnalysis(methods, properties);
+			return;
+		}
+
+		// only re-analyze methods whose fingerprint has no verdict yet
+		ResultCache cache = ResultCache.getMethodDefault();
+		Map<SootMethod, String> fingerprints = new HashMap<SootMethod, String>();
+		List<SootMethod> changed = new LinkedList<SootMethod>();
+		for (SootMethod method : methods) {
+			String fingerprint = MethodFingerprint.compute(method, pointsTo);
+			Map<VerificationProperty, Boolean> cached = new EnumMap<VerificationProperty, Boolean>(
+					VerificationProperty.class);
+			for (VerificationProperty property : properties) {
+				VerificationResult result = cache.get(fingerprint, property);
+				if (result == null) {
+					break;
+				}
+				cached.put(property, result.isSafe);
+			}
+			if (cached.size() == properties.size()) {
+				logger.debug("Reusing verdicts for unchanged method {}", method.getName());
+				verdicts.put(method, cached);
+			} else {
+				fingerprints.put(method, fingerprint);
+				changed.add(method);
+			}
+		}
+		logger.debug("Re-analyzing {} of {} methods", changed.size(), methods.size());
+
+		this.runNumericalAnalysis(changed, properties);
+
+		for (SootMethod method : changed) {
+			String fingerprint = fingerprints.get(method);
+			for (VerificationProperty property : properties) {
+				cache.put(fingerprint, property, new VerificationResult(verdicts.get(method).get(property)));
+			}
 		}
 	}
 
-	@Override
-	public boolean checksNonNegative() {
-		boolean property = true;
-		for(NumericalAnalysis a : analyses){
-			property = property && a.nonNegativeResult;
+	/**
+	 * Analyze a method with the configured domains, from cheapest to most
+	 * precise, re-analyzing only the properties that may still be UNSAFE. Every
+	 * domain is sound, so a property is SAFE once any domain proves it.
+	 * 
+	 * @param method     method to analyze
+	 * @param properties the properties about to be verified
+	 * @return for each of properties, true if it is SAFE in method
+	 */
+	private Map<VerificationProperty, Boolean> analyze(SootMethod method, Set<VerificationProperty> properties) {
+		Map<VerificationProperty, Boolean> ret = new EnumMap<VerificationProperty, Boolean>(VerificationProperty.class);
+		Set<VerificationProperty> remaining = EnumSet.copyOf(properties);
+		for (NumericalDomain domain : Configuration.props.getNumericalDomains()) {
+			if (!ret.isEmpty()) {
+				logger.debug("Escalating {} to {} for {}", method.getName(), domain, remaining);
+			}
+			NumericalAnalysis a = new NumericalAnalysis(method, remaining, pointsTo, domain);
+			for (VerificationProperty property : properties) {
+				if (remaining.contains(property)) {
+					ret.put(property, Verifier.isSafe(a, property));
+				}
+			}
+			for (VerificationProperty property : properties) {
+				if (ret.get(property)) {
+					remaining.remove(property);
+				}
+			}
+			if (remaining.isEmpty()) {
+				break;
+			}
+		}
+		return ret;
+	}
+
+	private void runNumericalAnalysis(List<SootMethod> methods, Set<VerificationProperty> properties) {
+		int threads = Math.min(Configuration.props.getAnalysisThreads(), methods.size());
+		if (threads <= 1) {
+			for (SootMethod method : methods) {
+				verdicts.put(method, this.analyze(method, properties));
+			}
+		} else {
+			this.runNumericalAnalysisInParallel(methods, properties, threads);
+		}
+	}
+
+	/**
+	 * Analyze each method on its own worker. Every {@link NumericalAnalysis}
+	 * creates its own Apron manager, so workers share no native state. Soot's
+	 * scene is not thread-safe either, so bodies, graphs and store indices are
+	 * built on the calling thread before fanning out, and workers only read
+	 * them.
+	 * 
+	 * @param methods    methods to analyze
+	 * @param properties the properties about to be verified
+	 * @param threads    size of the worker pool
+	 */
+	private void runNumericalAnalysisInParallel(List<SootMethod> methods, final Set<VerificationProperty> properties,
+			int threads) {
+		logger.debug("Analyzing {} methods on {} threads", methods.size(), threads);
+		for (SootMethod method : methods) {
+			SootHelper.loadMethodGraph(method);
+			pointsTo.getStoreIndex(method);
 		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Map<VerificationProperty, Boolean>>> futures = new ArrayList<Future<Map<VerificationProperty, Boolean>>>();
+			for (final SootMethod method : methods) {
+				futures.add(pool.submit(new Callable<Map<VerificationProperty, Boolean>>() {
+					@Override
+					public Map<VerificationProperty, Boolean> call() {
+						return Verifier.this.analyze(method, properties);
+					}
+				}));
+			}
+			// collect in method order, so results do not depend on scheduling
+			for (int i = 0; i < methods.size(); i++) {
+				verdicts.put(methods.get(i), futures.get(i).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
 
-		return property;
+	@Override
+	public boolean checksNonNegative() {
+		return this.isSafe(VerificationProperty.NON_NEGATIVE);
 	}
 
 	@Override
 	public boolean checkFitsInTrolley() {
-		boolean property = true;
-		for(NumericalAnalysis a : analyses){
-			property = property && a.fitsInTrolley;
-		}
-		return property;
+		return this.isSafe(VerificationProperty.FITS_IN_TROLLEY);
 	}
 
 	@Override
 	public boolean checkFitsInReserve() {
-		boolean property = true;
-		for(NumericalAnalysis a : analyses){
-			property = property && a.fitsInReserve;
+		return this.isSafe(VerificationProperty.FITS_IN_RESERVE);
+	}
+
+	private boolean isSafe(VerificationProperty property) {
+		boolean ret = true;
+		for (Map<VerificationProperty, Boolean> v : verdicts.values()) {
+			ret = ret && v.get(property);
+		}
+		return ret;
+	}
+
+	private static boolean isSafe(NumericalAnalysis a, VerificationProperty property) {
+		switch (property) {
+		case NON_NEGATIVE:
+			return a.nonNegativeResult;
+		case FITS_IN_TROLLEY:
+			return a.fitsInTrolley;
+		case FITS_IN_RESERVE:
+			return a.fitsInReserve;
+		default:
+			throw new UnsupportedOperationException(property.toString());
 		}
-		return property;
 	}
 
 	// TODO: MAYBE FILL THIS OUT: add convenience methods
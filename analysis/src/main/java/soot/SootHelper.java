@@ -1,8 +1,17 @@
 package soot;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.ethz.rse.numerical.UnitNumbering;
+import ch.ethz.rse.numerical.WeakTopologicalOrder;
 import ch.ethz.rse.utils.Configuration;
 import ch.ethz.rse.verify.ClassToVerify;
 import soot.options.Options;
@@ -17,16 +26,278 @@ public class SootHelper {
 
 	private static final Logger logger = LoggerFactory.getLogger(SootHelper.class);
 
+	/**
+	 * For each Soot scene (identified by its {@link G}), the classes it holds.
+	 * Resetting a scene replaces its {@link G}, which invalidates the entry.
+	 */
+	private static final Map<G, SceneClasses> sceneClasses = Collections
+			.synchronizedMap(new WeakHashMap<G, SceneClasses>());
+
+	/**
+	 * Classes loaded into a scene
+	 */
+	private static class SceneClasses {
+
+		/**
+		 * Key of each loaded class (see {@link SootHelper#getSceneKey(ClassToVerify)}),
+		 * by class name
+		 */
+		private final Map<String, String> loaded = new HashMap<String, String>();
+
+		/**
+		 * Name of the class the current points-to results were computed for
+		 * (null if none)
+		 */
+		private String analyzed = null;
+	}
+
+	/**
+	 * For each Soot scene, the control flow graph of each method built so far
+	 * (see {@link #getUnitGraph(SootMethod)}). Entries are dropped by
+	 * {@link #invalidateGraphs()} before the scene is reset.
+	 */
+	private static final Map<G, ConcurrentMap<SootMethod, MethodGraph>> graphs = Collections
+			.synchronizedMap(new WeakHashMap<G, ConcurrentMap<SootMethod, MethodGraph>>());
+
+	/**
+	 * Cached graph of a method, with its numbering (built on first use, unless
+	 * {@link Configuration#precomputeUnitNumbering()}) and weak topological
+	 * order (built on first use), whose component heads are the loop heads
+	 */
+	private static class MethodGraph {
+
+		private final UnitGraph graph;
+
+		private UnitNumbering numbering;
+
+		private WeakTopologicalOrder wto;
+
+		private MethodGraph(UnitGraph graph) {
+			this.graph = graph;
+		}
+
+		private synchronized UnitNumbering getNumbering() {
+			if (this.numbering == null) {
+				this.numbering = new UnitNumbering(this.graph);
+			}
+			return this.numbering;
+		}
+
+		private synchronized WeakTopologicalOrder getWeakTopologicalOrder() {
+			if (this.wto == null) {
+				this.wto = new WeakTopologicalOrder(this.graph.getHeads(), this.getNumbering());
+			}
+			return this.wto;
+		}
+	}
+
+	/**
+	 * Whether {@link #useThreadLocalScenes()} was already called
+	 */
+	private static boolean threadLocalScenes = false;
+
+	/**
+	 * Give each thread its own Soot scene, so that several classes can be
+	 * loaded and analyzed concurrently. Threads inherit the scene of the thread
+	 * that created them (e.g., workers analyzing the methods of a class).
+	 */
+	public static synchronized void useThreadLocalScenes() {
+		if (threadLocalScenes) {
+			return;
+		}
+		final InheritableThreadLocal<G> scenes = new InheritableThreadLocal<G>() {
+			@Override
+			protected G initialValue() {
+				return new G();
+			}
+		};
+		G.setGlobalObjectGetter(new G.GlobalObjectGetter() {
+			@Override
+			public G getG() {
+				return scenes.get();
+			}
+
+			@Override
+			public void reset() {
+				scenes.set(new G());
+			}
+		});
+		threadLocalScenes = true;
+		logger.info("Using one Soot scene per thread");
+	}
+
+	/**
+	 * Load the referenced class and run points-to analysis on it. The scene is
+	 * kept between calls (e.g., when verifying many classes in a long-running
+	 * process):
+	 * <ul>
+	 * <li>if it already holds the same, unchanged class with its points-to
+	 * results, it is reused as is</li>
+	 * <li>if it holds the same, unchanged class with the points-to results of
+	 * another class, points-to analysis re-runs for the class</li>
+	 * <li>if it does not hold the class yet, the class is added to it and
+	 * points-to analysis runs for the class, without reloading the JDK</li>
+	 * <li>if it holds an older version of the class (or a class from another
+	 * class path), or already holds {@link Configuration#getSceneClassLimit()}
+	 * classes, it is reset and the class is loaded from scratch</li>
+	 * </ul>
+	 * Points-to analysis only starts from the methods of the class, and other
+	 * classes in the scene are treated as library classes, so its cost does not
+	 * grow with the number of classes in the scene.
+	 * 
+	 * @param c the class to test
+	 * @return the Soot representation of c
+	 */
 	public static SootClass loadClassAndAnalyze(ClassToVerify c) {
 		logger.info("Using LoadClassAndAnalyze");
-		SootClass sc = SootHelper.loadClass(c);
-		
+		if (SootHelper.isLoadedAndAnalyzed(c)) {
+			logger.info("Reusing {} already loaded into Soot", c.getPackageName());
+			return Scene.v().getSootClass(c.getPackageName());
+		}
+
+		SootClass sc = SootHelper.loadIntoScene(c);
+		SceneClasses classes = sceneClasses.get(G.v());
+		if (classes.loaded.size() > 1) {
+			SootHelper.selectApplicationClass(sc, classes);
+		}
 		SootHelper.runPointsToAnalysis();
+		classes.analyzed = c.getPackageName();
+		return sc;
+	}
+
+	/**
+	 * Load the referenced class into the current scene without running
+	 * points-to analysis (e.g., when its points-to results are restored from a
+	 * cache). The scene is reused, extended or reset like in
+	 * {@link #loadClassAndAnalyze(ClassToVerify)}, and the points-to results of
+	 * the class analyzed before stay valid.
+	 * 
+	 * @param c the class to test
+	 * @return the Soot representation of c
+	 */
+	public static SootClass loadIntoScene(ClassToVerify c) {
+		SootClass sc;
+		SceneClasses classes = sceneClasses.get(G.v());
+		if (SootHelper.isLoaded(c, classes)) {
+			logger.info("Reusing {} already loaded into Soot", c.getPackageName());
+			sc = Scene.v().getSootClass(c.getPackageName());
+		} else if (SootHelper.canAddToScene(c, classes)) {
+			sc = SootHelper.addToScene(c);
+		} else {
+			sc = SootHelper.loadClass(c);
+			classes = new SceneClasses();
+			sceneClasses.put(G.v(), classes);
+		}
+		classes.loaded.put(c.getPackageName(), SootHelper.getSceneKey(c));
+		return sc;
+	}
+
+	/**
+	 * 
+	 * @param c the class to test
+	 * @return true if the current scene holds c, unchanged, together with its
+	 *         points-to results
+	 */
+	public static boolean isLoadedAndAnalyzed(ClassToVerify c) {
+		SceneClasses classes = sceneClasses.get(G.v());
+		return SootHelper.isLoaded(c, classes) && c.getPackageName().equals(classes.analyzed);
+	}
+
+	/**
+	 * 
+	 * @param c       the class to test
+	 * @param classes classes held by the current scene (null if none)
+	 * @return true if the current scene holds c, unchanged
+	 */
+	private static boolean isLoaded(ClassToVerify c, SceneClasses classes) {
+		return classes != null && SootHelper.getSceneKey(c).equals(classes.loaded.get(c.getPackageName()))
+				&& Scene.v().containsClass(c.getPackageName());
+	}
+
+	/**
+	 * 
+	 * @param c       the class to test
+	 * @param classes classes held by the current scene (null if none)
+	 * @return true if c can be added to the current scene without resetting it
+	 */
+	private static boolean canAddToScene(ClassToVerify c, SceneClasses classes) {
+		if (classes == null || classes.loaded.isEmpty()) {
+			return false;
+		}
+		if (classes.loaded.size() >= Configuration.props.getSceneClassLimit()) {
+			logger.info("Scene holds {} classes, resetting it", classes.loaded.size());
+			return false;
+		}
+		// classes already in the scene (e.g., an older version of c, or a
+		// class referenced by another one) cannot be replaced
+		if (Scene.v().containsClass(c.getPackageName())) {
+			return false;
+		}
+		return Scene.v().getSootClassPath().startsWith(c.getClassPath().toString() + ":");
+	}
+
+	/**
+	 * Load the referenced class into the current scene, next to the classes it
+	 * already holds. Points-to analysis must re-run afterwards.
+	 * 
+	 * @param c the class to test, not in the scene yet
+	 * @return the Soot representation of c
+	 */
+	private static SootClass addToScene(ClassToVerify c) {
+		long startTime = System.nanoTime();
+		logger.info("Adding {} to the loaded Soot scene", c.getPackageName());
+
+		// the scene finished resolving when the first class was loaded
+		Options.v().set_ignore_resolving_levels(true);
+		SootClass sc = Scene.v().loadClass(c.getPackageName(), SootClass.BODIES);
+		for (SootMethod method : sc.getMethods()) {
+			method.retrieveActiveBody();
+			logger.debug("Loaded method {} with body:\n{}", method.toString(), method.getActiveBody());
+		}
+
+		long durationMilliseconds = (System.nanoTime() - startTime) / 1000000;
+		logger.info("Runtime: Added {} after {}ms", sc.name, durationMilliseconds);
 		return sc;
 	}
 
 	/**
-	 * Load the referenced class and all related classes
+	 * Make sc the only application class among the loaded classes, and the entry
+	 * point of points-to analysis, so that SPARK (which only considers
+	 * application classes) and the transformation packs skip the other classes
+	 * 
+	 * @param sc      class about to be analyzed
+	 * @param classes classes held by the current scene
+	 */
+	private static void selectApplicationClass(SootClass sc, SceneClasses classes) {
+		for (String name : classes.loaded.keySet()) {
+			SootClass other = Scene.v().getSootClass(name);
+			if (other != sc && other.isApplicationClass()) {
+				other.setLibraryClass();
+			}
+		}
+		sc.setApplicationClass();
+
+		// results computed for another class only
+		Scene.v().releaseActiveHierarchy();
+		Scene.v().releaseFastHierarchy();
+		Scene.v().releaseCallGraph();
+		Scene.v().releaseReachableMethods();
+		Scene.v().releasePointsToAnalysis();
+		Scene.v().setEntryPoints(sc.getMethods());
+	}
+
+	/**
+	 * 
+	 * @param c the class to test
+	 * @return a key that changes whenever c is moved or its bytecode changes
+	 */
+	private static String getSceneKey(ClassToVerify c) {
+		return c.getClassPath().getAbsolutePath() + ":" + c.getPackageName() + ":" + c.getContentHash();
+	}
+
+	/**
+	 * Load the referenced class and all related classes into a fresh scene,
+	 * dropping all classes loaded before
 	 * 
 	 * @param c the class to test
 	 * @return the Soot representation of c
@@ -53,6 +324,7 @@ public class SootHelper {
 
 		// reset previously loaded classes (important for consecutive analysis)
 		logger.info("Resetting Soot.");
+		SootHelper.invalidateGraphs();
 		G.reset();
 
 		// Helpful resources for creating this code:
@@ -109,14 +381,29 @@ public class SootHelper {
 	public static void runPointsToAnalysis() {
 		long startTime = System.nanoTime();
 
-		SootHelper.runPointsToAnalysisInternal();
+		boolean lean = Configuration.props.useLeanPointsToAnalysis();
+		SootHelper.runPointsToAnalysisInternal(lean);
 
 		long endTime = System.nanoTime();
 		long durationMilliseconds = (endTime - startTime) / 1000000;
-		logger.debug("Runtime: Ran points-to analysis in {}ms", durationMilliseconds);
+		logger.debug("Runtime: Ran points-to analysis ({} pipeline) in {}ms", SootHelper.getPipelineName(lean),
+				durationMilliseconds);
+	}
+
+	/**
+	 * 
+	 * @return name of the pipeline {@link #runPointsToAnalysis()} uses, for
+	 *         runtime logs
+	 */
+	public static String getPipelineName() {
+		return SootHelper.getPipelineName(Configuration.props.useLeanPointsToAnalysis());
+	}
+
+	private static String getPipelineName(boolean lean) {
+		return lean ? "lean cg" : "all packs";
 	}
 
-	private static void runPointsToAnalysisInternal() {
+	private static void runPointsToAnalysisInternal(boolean lean) {
 		// Enable SPARK call-graph construction
 		// Documentation of options:
 		// https://soot-build.cs.uni-paderborn.de/public/origin/master/soot/soot-master/3.0.0/options/soot_options.htm#phase_5_2
@@ -136,7 +423,16 @@ public class SootHelper {
 
 		// run SPARK call-graph construction
 		logger.info("Running call-graph construction");
-		PackManager.v().runPacks();
+		if (lean) {
+			// only the call graph and points-to sets are used, so skip the
+			// whole-program and per-body transformation packs whose output is
+			// discarded anyway
+			PackManager.v().getPack("cg").apply();
+		} else {
+			PackManager.v().runPacks();
+			// the body packs may have transformed the bodies
+			SootHelper.invalidateGraphs();
+		}
 		logger.info("Finished call-graph construction");
 	}
 
@@ -147,10 +443,81 @@ public class SootHelper {
 				|| val.getType().toString().equals("byte");
 	}
 
+	/**
+	 * The graph is built once per method and scene, and shared by all stages
+	 * analyzing the method
+	 * 
+	 * @param method method with a body
+	 * @return control flow graph of the body of method
+	 */
 	public final static UnitGraph getUnitGraph(SootMethod method) {
+		return SootHelper.getMethodGraph(method).graph;
+	}
+
+	/**
+	 * 
+	 * @param method method with a body
+	 * @return numbering of the units of {@link #getUnitGraph(SootMethod)}, shared
+	 *         like the graph
+	 */
+	public static UnitNumbering getUnitNumbering(SootMethod method) {
+		return SootHelper.getMethodGraph(method).getNumbering();
+	}
+
+	/**
+	 * 
+	 * @param method method with a body
+	 * @return weak topological order of {@link #getUnitGraph(SootMethod)},
+	 *         shared like the graph
+	 */
+	public static WeakTopologicalOrder getWeakTopologicalOrder(SootMethod method) {
+		return SootHelper.getMethodGraph(method).getWeakTopologicalOrder();
+	}
+
+	/**
+	 * Build the body of method, its graph and everything shared with it (see
+	 * {@link #getUnitNumbering(SootMethod)} and
+	 * {@link #getWeakTopologicalOrder(SootMethod)}). Building them reads
+	 * the scene, which is not thread-safe, so this must be called on the thread
+	 * owning the scene before handing method to worker threads.
+	 * 
+	 * @param method method with a body
+	 */
+	public static void loadMethodGraph(SootMethod method) {
+		MethodGraph g = SootHelper.getMethodGraph(method);
+		g.getNumbering();
+		g.getWeakTopologicalOrder();
+	}
+
+	private static MethodGraph getMethodGraph(SootMethod method) {
+		ConcurrentMap<SootMethod, MethodGraph> perScene;
+		synchronized (graphs) {
+			perScene = graphs.get(G.v());
+			if (perScene == null) {
+				perScene = new ConcurrentHashMap<SootMethod, MethodGraph>();
+				graphs.put(G.v(), perScene);
+			}
+		}
+		MethodGraph ret = perScene.get(method);
+		if (ret != null) {
+			return ret;
+		}
+
 		Body b = method.retrieveActiveBody();
-		logger.debug("Analysing:\n" + b);
-		UnitGraph g = new BriefUnitGraph(b);
-		return g;
+		logger.debug("Building graph of {}:\n{}", method, b);
+		ret = new MethodGraph(new BriefUnitGraph(b));
+		if (Configuration.props.precomputeUnitNumbering()) {
+			ret.getNumbering();
+		}
+		MethodGraph previous = perScene.putIfAbsent(method, ret);
+		return previous == null ? ret : previous;
+	}
+
+	/**
+	 * Drop the graphs of all methods of the current scene. Must be called before
+	 * resetting the scene ({@link G#reset()}) or modifying a body.
+	 */
+	public static void invalidateGraphs() {
+		graphs.remove(G.v());
 	}
 }
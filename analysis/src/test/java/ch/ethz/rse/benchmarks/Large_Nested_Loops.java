@@ -0,0 +1,44 @@
+package ch.ethz.rse.benchmarks;
+
+import ch.ethz.rse.Store;
+
+// Synthetic benchmark input: nested loops with deliveries at every level
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY SAFE
+// FITS_IN_RESERVE UNSAFE
+
+public class Large_Nested_Loops {
+
+  public static void m1(int n) {
+    Store s0 = new Store(5, 50);
+    Store s1 = new Store(5, 50);
+    int total = 0;
+    for (int i = 0; i < 5; i++) {
+      s0.get_delivery(i);
+      for (int j = 0; j < 5; j++) {
+        s1.get_delivery(j);
+        for (int k = 0; k < 5; k++) {
+          s0.get_delivery(k);
+          total = total + k;
+        }
+        if (total > n) {
+          s1.get_delivery(1);
+        }
+      }
+    }
+  }
+
+  public static void m2(int n) {
+    Store s = new Store(5, 50);
+    int i = 0;
+    while (i < n) {
+      int j = 0;
+      while (j < i) {
+        s.get_delivery(2);
+        j = j + 1;
+      }
+      i = i + 1;
+    }
+  }
+}
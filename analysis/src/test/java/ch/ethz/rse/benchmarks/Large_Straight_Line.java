@@ -0,0 +1,103 @@
+package ch.ethz.rse.benchmarks;
+
+import ch.ethz.rse.Store;
+
+// Synthetic benchmark input: many integer locals and deliveries in
+// straight-line code
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY SAFE
+// FITS_IN_RESERVE SAFE
+
+public class Large_Straight_Line {
+
+  public static void m1(int x) {
+    Store s0 = new Store(10, 1000);
+    Store s1 = new Store(10, 1000);
+    Store s2 = new Store(10, 1000);
+    int a0 = 0;
+    int a1 = 1;
+    int a2 = 2;
+    int a3 = 3;
+    int a4 = 4;
+    int a5 = 0;
+    int a6 = 1;
+    int a7 = 2;
+    int a8 = 3;
+    int a9 = 4;
+    int a10 = 0;
+    int a11 = 1;
+    int a12 = 2;
+    int a13 = 3;
+    int a14 = 4;
+    int a15 = 0;
+    int a16 = 1;
+    int a17 = 2;
+    int a18 = 3;
+    int a19 = 4;
+    int a20 = 0;
+    int a21 = 1;
+    int a22 = 2;
+    int a23 = 3;
+    int a24 = 4;
+    int a25 = 0;
+    int a26 = 1;
+    int a27 = 2;
+    int a28 = 3;
+    int a29 = 4;
+    int a30 = 0;
+    int a31 = 1;
+    int a32 = 2;
+    int a33 = 3;
+    int a34 = 4;
+    int a35 = 0;
+    int a36 = 1;
+    int a37 = 2;
+    int a38 = 3;
+    int a39 = 4;
+    s0.get_delivery(a0 + a1);
+    s1.get_delivery(a1 + a2);
+    s2.get_delivery(a2 + a3);
+    s0.get_delivery(a3 + a4);
+    s1.get_delivery(a4 + a5);
+    s2.get_delivery(a5 + a6);
+    s0.get_delivery(a6 + a7);
+    s1.get_delivery(a7 + a8);
+    s2.get_delivery(a8 + a9);
+    s0.get_delivery(a9 + a10);
+    s1.get_delivery(a10 + a11);
+    s2.get_delivery(a11 + a12);
+    s0.get_delivery(a12 + a13);
+    s1.get_delivery(a13 + a14);
+    s2.get_delivery(a14 + a15);
+    s0.get_delivery(a15 + a16);
+    s1.get_delivery(a16 + a17);
+    s2.get_delivery(a17 + a18);
+    s0.get_delivery(a18 + a19);
+    s1.get_delivery(a19 + a20);
+    s2.get_delivery(a20 + a21);
+    s0.get_delivery(a21 + a22);
+    s1.get_delivery(a22 + a23);
+    s2.get_delivery(a23 + a24);
+    s0.get_delivery(a24 + a25);
+    s1.get_delivery(a25 + a26);
+    s2.get_delivery(a26 + a27);
+    s0.get_delivery(a27 + a28);
+    s1.get_delivery(a28 + a29);
+    s2.get_delivery(a29 + a30);
+    s0.get_delivery(a30 + a31);
+    s1.get_delivery(a31 + a32);
+    s2.get_delivery(a32 + a33);
+    s0.get_delivery(a33 + a34);
+    s1.get_delivery(a34 + a35);
+    s2.get_delivery(a35 + a36);
+    s0.get_delivery(a36 + a37);
+    s1.get_delivery(a37 + a38);
+    s2.get_delivery(a38 + a39);
+    if (x > 0) {
+      s0.get_delivery(a0 + a1 + a2 + a3);
+    } else {
+      s1.get_delivery(a4 + a5);
+    }
+  }
+}
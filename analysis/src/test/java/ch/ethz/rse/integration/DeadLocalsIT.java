@@ -0,0 +1,53 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.main.Runner;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.testing.VerificationTestCaseCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Checks that forgetting dead locals (see
+ * {@link ch.ethz.rse.utils.Configuration#forgetDeadLocals()}) does not change
+ * the verdicts on any of the provided examples, including those with loops
+ * (e.g., {@link ch.ethz.rse.integration.tests.Loop_Bound_Test})
+ *
+ */
+public class DeadLocalsIT {
+
+	/**
+	 *
+	 * @return all available tasks
+	 */
+	public static List<VerificationTestCase> getTests() throws IOException {
+		return VerificationTestCaseCollector.getTests();
+	}
+
+	/**
+	 *
+	 * @param example task to verify
+	 * @param forget  value of FORGET_DEAD_LOCALS
+	 * @return true if the task was verified
+	 */
+	private static boolean isSafe(VerificationTestCase example, boolean forget) {
+		System.setProperty("FORGET_DEAD_LOCALS", Boolean.toString(forget));
+		try {
+			return Runner.verify(example.getVerificationTask()).isSafe;
+		} finally {
+			System.clearProperty("FORGET_DEAD_LOCALS");
+		}
+	}
+
+	@ParameterizedTest(name = "{index}: {0}")
+	@MethodSource("getTests")
+	void testExampleClass(VerificationTestCase example) {
+		Assumptions.assumeFalse(example.isDisabled());
+		Assertions.assertEquals(isSafe(example, false), isSafe(example, true));
+	}
+
+}
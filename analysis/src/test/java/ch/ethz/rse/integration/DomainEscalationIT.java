@@ -0,0 +1,40 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.main.Runner;
+import ch.ethz.rse.testing.VerificationTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that properties a cheap domain cannot prove are re-analyzed with the
+ * next configured domain (see
+ * {@link ch.ethz.rse.utils.Configuration#getNumericalDomains()})
+ */
+public class DomainEscalationIT {
+
+	private static final String packageName = "ch.ethz.rse.integration.tests.Relational_Bound_Test";
+
+	/**
+	 * 
+	 * @param domains value of NUMERICAL_DOMAIN
+	 * @return true if NON_NEGATIVE was verified
+	 */
+	private boolean nonNegative(String domains) {
+		System.setProperty("NUMERICAL_DOMAIN", domains);
+		try {
+			VerificationTestCase t = new VerificationTestCase(packageName, VerificationProperty.NON_NEGATIVE, true);
+			return Runner.verify(t.getVerificationTask()).isSafe;
+		} finally {
+			System.clearProperty("NUMERICAL_DOMAIN");
+		}
+	}
+
+	@Test
+	void testEscalation() {
+		Assertions.assertFalse(this.nonNegative("BOX"));
+		Assertions.assertTrue(this.nonNegative("POLKA_STRICT"));
+		Assertions.assertTrue(this.nonNegative("BOX,POLKA_STRICT"));
+	}
+
+}
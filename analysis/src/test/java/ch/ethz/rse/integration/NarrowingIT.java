@@ -0,0 +1,48 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.main.Runner;
+import ch.ethz.rse.testing.VerificationTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the descending passes after widening (see
+ * {@link ch.ethz.rse.utils.Configuration#getNarrowingPasses()}) recover loop
+ * bounds, with either iteration strategy
+ */
+public class NarrowingIT {
+
+	private static final String packageName = "ch.ethz.rse.integration.tests.Loop_Bound_Test";
+
+	/**
+	 * 
+	 * @param wtoIteration    value of WTO_ITERATION
+	 * @param narrowingPasses value of NARROWING_PASSES
+	 * @return true if FITS_IN_TROLLEY was verified
+	 */
+	private boolean fitsInTrolley(boolean wtoIteration, int narrowingPasses) {
+		System.setProperty("WTO_ITERATION", Boolean.toString(wtoIteration));
+		System.setProperty("NARROWING_PASSES", Integer.toString(narrowingPasses));
+		try {
+			VerificationTestCase t = new VerificationTestCase(packageName, VerificationProperty.FITS_IN_TROLLEY, true);
+			return Runner.verify(t.getVerificationTask()).isSafe;
+		} finally {
+			System.clearProperty("WTO_ITERATION");
+			System.clearProperty("NARROWING_PASSES");
+		}
+	}
+
+	@Test
+	void testWorklist() {
+		Assertions.assertFalse(this.fitsInTrolley(false, 0));
+		Assertions.assertTrue(this.fitsInTrolley(false, 2));
+	}
+
+	@Test
+	void testWeakTopologicalOrder() {
+		Assertions.assertFalse(this.fitsInTrolley(true, 0));
+		Assertions.assertTrue(this.fitsInTrolley(true, 2));
+	}
+
+}
@@ -0,0 +1,53 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.main.Runner;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.testing.VerificationTestCaseCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Checks that analyzing the methods of a class in parallel (see
+ * {@link ch.ethz.rse.utils.Configuration#getAnalysisThreads()}) yields the
+ * same verdicts as analyzing them sequentially, on all provided examples
+ * (e.g., {@link ch.ethz.rse.integration.tests.Several_Methods_Test})
+ *
+ */
+public class ParallelAnalysisIT {
+
+	/**
+	 *
+	 * @return all available tasks
+	 */
+	public static List<VerificationTestCase> getTests() throws IOException {
+		return VerificationTestCaseCollector.getTests();
+	}
+
+	/**
+	 *
+	 * @param example task to verify
+	 * @param threads value of ANALYSIS_THREADS
+	 * @return true if the task was verified
+	 */
+	private static boolean isSafe(VerificationTestCase example, int threads) {
+		System.setProperty("ANALYSIS_THREADS", Integer.toString(threads));
+		try {
+			return Runner.verify(example.getVerificationTask()).isSafe;
+		} finally {
+			System.clearProperty("ANALYSIS_THREADS");
+		}
+	}
+
+	@ParameterizedTest(name = "{index}: {0}")
+	@MethodSource("getTests")
+	void testExampleClass(VerificationTestCase example) {
+		Assumptions.assumeFalse(example.isDisabled());
+		Assertions.assertEquals(isSafe(example, 1), isSafe(example, 4));
+	}
+
+}
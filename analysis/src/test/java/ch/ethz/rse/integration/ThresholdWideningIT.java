@@ -0,0 +1,34 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.main.Runner;
+import ch.ethz.rse.testing.VerificationTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that widening with thresholds (see
+ * {@link ch.ethz.rse.utils.Configuration#useThresholdWidening()}) keeps bounds
+ * that plain widening loses
+ */
+public class ThresholdWideningIT {
+
+	private static final String packageName = "ch.ethz.rse.integration.tests.Guarded_Counter";
+
+	private boolean fitsInTrolley(boolean thresholdWidening) {
+		System.setProperty("THRESHOLD_WIDENING", Boolean.toString(thresholdWidening));
+		try {
+			VerificationTestCase t = new VerificationTestCase(packageName, VerificationProperty.FITS_IN_TROLLEY, true);
+			return Runner.verify(t.getVerificationTask()).isSafe;
+		} finally {
+			System.clearProperty("THRESHOLD_WIDENING");
+		}
+	}
+
+	@Test
+	void testKeepsLoopBound() {
+		Assertions.assertFalse(this.fitsInTrolley(false));
+		Assertions.assertTrue(this.fitsInTrolley(true));
+	}
+
+}
@@ -0,0 +1,46 @@
+package ch.ethz.rse.integration;
+
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.testing.VerificationTestCaseCollector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Test the code on all provided examples, iterating to the fixpoint in weak
+ * topological order (see
+ * {@link ch.ethz.rse.utils.Configuration#useWtoIteration()}). The expected
+ * results are the same as with Soot's worklist.
+ * 
+ */
+public class WtoExamplesIT {
+
+	@BeforeAll
+	static void enableWtoIteration() {
+		System.setProperty("WTO_ITERATION", "true");
+	}
+
+	@AfterAll
+	static void disableWtoIteration() {
+		System.clearProperty("WTO_ITERATION");
+	}
+
+	/**
+	 * 
+	 * @return all available tasks
+	 */
+	public static List<VerificationTestCase> getTests() throws IOException {
+		return VerificationTestCaseCollector.getTests();
+	}
+
+	@ParameterizedTest(name = "{index}: {0}")
+	@MethodSource("getTests")
+	void testExampleClass(VerificationTestCase example) {
+		SpecificExampleIT.testOnExample(example);
+	}
+
+}
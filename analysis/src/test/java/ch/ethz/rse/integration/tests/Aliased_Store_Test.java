@@ -0,0 +1,21 @@
+package ch.ethz.rse.integration.tests;
+
+import ch.ethz.rse.Store;
+
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY UNSAFE
+// FITS_IN_RESERVE SAFE
+
+public class Aliased_Store_Test {
+    public static void m1(int j) {
+        Store a = new Store(2, 10);
+        Store b = new Store(5, 10);
+        Store s = a;
+        if (j > 0) {
+            s = b;
+        }
+        s.get_delivery(4); // too much for the trolley of a
+        s.get_delivery(5); // each store gets at most 9 in total
+    }
+}
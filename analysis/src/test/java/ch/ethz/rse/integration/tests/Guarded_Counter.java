@@ -0,0 +1,23 @@
+package ch.ethz.rse.integration.tests;
+
+import ch.ethz.rse.Store;
+
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY UNSAFE
+// FITS_IN_RESERVE SAFE
+
+public class Guarded_Counter {
+    public static void m1(int x) {
+        Store s = new Store(10, 100);
+        int i = 0;
+        while (x > 0) {
+            if (i < 10) {
+                i = i + 1;
+            }
+        }
+        // widening loses i <= 10 (which descending passes cannot recover),
+        // unless it keeps the threshold 10 (see ThresholdWideningIT)
+        s.get_delivery(i);
+    }
+}
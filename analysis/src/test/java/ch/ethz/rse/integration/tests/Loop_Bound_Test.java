@@ -0,0 +1,24 @@
+package ch.ethz.rse.integration.tests;
+
+import ch.ethz.rse.Store;
+
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY UNSAFE
+// FITS_IN_RESERVE SAFE
+
+public class Loop_Bound_Test {
+    public static void m1() {
+        Store s = new Store(10, 100);
+        for (int i = 0; i < 10; i++) {
+            s.get_delivery(i);
+        }
+        int j = 0;
+        while (j < 10) {
+            j = j + 1;
+        }
+        // widening loses j <= 10, which only descending passes recover (see
+        // NarrowingIT)
+        s.get_delivery(j);
+    }
+}
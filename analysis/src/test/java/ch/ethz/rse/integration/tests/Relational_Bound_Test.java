@@ -0,0 +1,21 @@
+package ch.ethz.rse.integration.tests;
+
+import ch.ethz.rse.Store;
+
+// expected results:
+// NON_NEGATIVE SAFE
+// FITS_IN_TROLLEY SAFE
+// FITS_IN_RESERVE SAFE
+
+public class Relational_Bound_Test {
+    public static void m1(int i, int j) {
+        Store s = new Store(10, 10);
+        if (j >= i) {
+            if (i >= 0) {
+                if (j <= 5) {
+                    s.get_delivery(j); // j >= i >= 0, which intervals cannot express
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ch.ethz.rse.integration.tests;
+
+import ch.ethz.rse.Store;
+
+// expected results:
+// NON_NEGATIVE UNSAFE
+// FITS_IN_TROLLEY SAFE
+// FITS_IN_RESERVE SAFE
+
+public class Several_Methods_Test {
+    public static void m1(int j) {
+        Store s = new Store(5, 10);
+        if (j > 0 && j < 5) {
+            s.get_delivery(j);
+        }
+    }
+
+    public static void m2() {
+        Store s = new Store(5, 10);
+        s.get_delivery(-1); // only this method is UNSAFE
+    }
+
+    public static void m3() {
+        Store s = new Store(5, 10);
+        s.get_delivery(2);
+        s.get_delivery(3);
+    }
+}
@@ -0,0 +1,41 @@
+package ch.ethz.rse.main;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.utils.FileUtilsWrapper;
+
+/**
+ * Checks how {@link BatchRunner} collects tasks
+ */
+public class BatchRunnerTest {
+
+	/**
+	 * tasks on the same class are grouped
+	 */
+	@Test
+	public void testGroupsCsvByClass() throws IOException {
+		File csv = File.createTempFile("tasks", ".csv");
+		csv.deleteOnExit();
+		FileUtilsWrapper.writeStringToFile(csv, "packageName,property,expected\n"
+				+ "ch.ethz.rse.integration.tests.Basic_Test_Safe,NON_NEGATIVE,SAFE\n"
+				+ "ch.ethz.rse.integration.tests.Basic_Test_Safe,FITS_IN_RESERVE,SAFE\n"
+				+ "ch.ethz.rse.integration.tests.My_Test,FITS_IN_RESERVE,UNSAFE\n");
+
+		BatchRunner runner = BatchRunner.fromCsv(csv);
+		Assertions.assertEquals(2, runner.getClassCount());
+	}
+
+	/**
+	 * all compiled classes of a package are collected
+	 */
+	@Test
+	public void testCollectsPackage() {
+		BatchRunner runner = BatchRunner.fromPackage("ch.ethz.rse.integration.tests");
+		Assertions.assertTrue(runner.getClassCount() > 0);
+	}
+
+}
@@ -0,0 +1,72 @@
+package ch.ethz.rse.main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+
+/**
+ * Checks that {@link ResultCache} persists results
+ */
+public class ResultCacheTest {
+
+	private static final String hash = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+
+	@Test
+	public void testPersistsResults() throws IOException {
+		File index = File.createTempFile("results", ".idx");
+		index.delete();
+		index.deleteOnExit();
+
+		ResultCache cache = new ResultCache(index);
+		Assertions.assertNull(cache.get(hash, VerificationProperty.NON_NEGATIVE));
+		cache.put(hash, VerificationProperty.NON_NEGATIVE, new VerificationResult(true));
+		cache.put(hash, VerificationProperty.FITS_IN_TROLLEY, new VerificationResult(true));
+		cache.put(hash, VerificationProperty.FITS_IN_TROLLEY, new VerificationResult(false));
+
+		ResultCache reloaded = new ResultCache(index);
+		Assertions.assertEquals(new VerificationResult(true), reloaded.get(hash, VerificationProperty.NON_NEGATIVE));
+		Assertions.assertEquals(new VerificationResult(false),
+				reloaded.get(hash, VerificationProperty.FITS_IN_TROLLEY));
+		Assertions.assertNull(reloaded.get(hash, VerificationProperty.FITS_IN_RESERVE));
+		Assertions.assertEquals(4 + 3 * ResultCache.RECORD_SIZE, index.length());
+	}
+
+	/**
+	 * a record cut short (e.g., by a crash) does not misalign later records
+	 */
+	@Test
+	public void testDropsPartialRecord() throws IOException {
+		File index = File.createTempFile("results", ".idx");
+		index.delete();
+		index.deleteOnExit();
+
+		new ResultCache(index).put(hash, VerificationProperty.NON_NEGATIVE, new VerificationResult(true));
+		try (FileOutputStream out = new FileOutputStream(index, true)) {
+			out.write(new byte[ResultCache.RECORD_SIZE / 2]);
+		}
+		new ResultCache(index).put(hash, VerificationProperty.FITS_IN_TROLLEY, new VerificationResult(false));
+
+		ResultCache reloaded = new ResultCache(index);
+		Assertions.assertEquals(new VerificationResult(true), reloaded.get(hash, VerificationProperty.NON_NEGATIVE));
+		Assertions.assertEquals(new VerificationResult(false),
+				reloaded.get(hash, VerificationProperty.FITS_IN_TROLLEY));
+		Assertions.assertEquals(4 + 2 * ResultCache.RECORD_SIZE, index.length());
+	}
+
+	/**
+	 * the analyzer version is derived from the compiled analyzer
+	 */
+	@Test
+	public void testCodeHash() {
+		String hash = ResultCache.getCodeHash();
+		Assertions.assertTrue(hash.matches("[0-9a-f]{64}"), hash);
+		Assertions.assertEquals(hash, ResultCache.getCodeHash());
+	}
+
+}
@@ -0,0 +1,53 @@
+package ch.ethz.rse.main;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.VerificationResult;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.G;
+
+/**
+ * Checks how {@link Runner} reuses the Soot scene between classes
+ */
+public class RunnerTest {
+
+	private static ClassToVerify getClass(String packageName) {
+		return new VerificationTestCase(packageName, VerificationProperty.FITS_IN_RESERVE, true).getTestClass();
+	}
+
+	private static boolean fitsInReserve(ClassToVerify c) {
+		Map<VerificationProperty, VerificationResult> results = Runner.verify(c,
+				EnumSet.of(VerificationProperty.FITS_IN_RESERVE));
+		return results.get(VerificationProperty.FITS_IN_RESERVE).isSafe;
+	}
+
+	/**
+	 * with cached points-to results, verifying two classes in a row (and the
+	 * first again) keeps the scene
+	 */
+	@Test
+	public void testPointsToCacheKeepsScene() {
+		ClassToVerify safe = getClass("ch.ethz.rse.integration.tests.Basic_Test_Safe");
+		ClassToVerify unsafe = getClass("ch.ethz.rse.integration.tests.My_Test");
+
+		System.setProperty("POINTS_TO_CACHE", "true");
+		try {
+			Assertions.assertTrue(fitsInReserve(safe));
+			G scene = G.v();
+			Assertions.assertFalse(fitsInReserve(unsafe));
+			Assertions.assertSame(scene, G.v());
+			// points-to results of safe are now restored from the cache
+			Assertions.assertTrue(fitsInReserve(safe));
+			Assertions.assertSame(scene, G.v());
+		} finally {
+			System.clearProperty("POINTS_TO_CACHE");
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package ch.ethz.rse.main;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the request protocol of {@link VerificationServer}
+ */
+public class VerificationServerTest {
+
+	/**
+	 * 
+	 * @param requests request lines
+	 * @return response lines
+	 */
+	private String[] serve(String... requests) throws IOException {
+		StringBuilder in = new StringBuilder();
+		for (String request : requests) {
+			in.append(request).append('\n');
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new VerificationServer().serve(new BufferedReader(new StringReader(in.toString())), new PrintStream(out));
+		return out.toString().split("\\r?\\n");
+	}
+
+	/**
+	 * requests on the same connection are answered in order, and all properties
+	 * of a request are verified
+	 */
+	@Test
+	public void testTwoRequests() throws IOException {
+		String[] responses = this.serve("ch.ethz.rse.integration.tests.Basic_Test_Safe NON_NEGATIVE",
+				"ch.ethz.rse.integration.tests.My_Test FITS_IN_TROLLEY FITS_IN_RESERVE", VerificationServer.QUIT,
+				"ch.ethz.rse.integration.tests.My_Test");
+
+		Assertions.assertEquals(2, responses.length);
+		Assertions.assertEquals("ch.ethz.rse.integration.tests.Basic_Test_Safe NON_NEGATIVE=SAFE", responses[0]);
+		Assertions.assertEquals("ch.ethz.rse.integration.tests.My_Test FITS_IN_TROLLEY=SAFE FITS_IN_RESERVE=UNSAFE",
+				responses[1]);
+	}
+
+	/**
+	 * unknown properties are reported instead of being ignored
+	 */
+	@Test
+	public void testUnknownProperty() throws IOException {
+		String[] responses = this.serve("ch.ethz.rse.integration.tests.Basic_Test_Safe NON_NEGATIVE NO_SUCH_PROPERTY");
+
+		Assertions.assertEquals(1, responses.length);
+		Assertions.assertTrue(responses[0].startsWith("ERROR ch.ethz.rse.integration.tests.Basic_Test_Safe"));
+	}
+
+}
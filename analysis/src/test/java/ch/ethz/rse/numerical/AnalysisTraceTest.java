@@ -0,0 +1,36 @@
+package ch.ethz.rse.numerical;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that arguments are not rendered unless the analysis is traced
+ */
+public class AnalysisTraceTest {
+
+	/**
+	 * Counts how often it is converted to a string
+	 */
+	private static class Rendered {
+
+		private int count = 0;
+
+		@Override
+		public String toString() {
+			this.count++;
+			return "rendered";
+		}
+	}
+
+	@Test
+	public void testDisabled() {
+		Assertions.assertFalse(AnalysisTrace.isEnabled());
+
+		Rendered r = new Rendered();
+		AnalysisTrace.log("Widening at {}", r);
+		AnalysisTrace.log("{} {}", r, r);
+		AnalysisTrace.step(null, null, r, r, r);
+		Assertions.assertEquals(0, r.count);
+	}
+
+}
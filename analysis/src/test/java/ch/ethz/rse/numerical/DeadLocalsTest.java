@@ -0,0 +1,62 @@
+package ch.ethz.rse.numerical;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.Local;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+import soot.Unit;
+import soot.toolkits.graph.UnitGraph;
+import soot.toolkits.scalar.SimpleLiveLocals;
+
+/**
+ * Checks that the locals forgotten by {@link NumericalAnalysis} are dead, in
+ * particular around loops
+ */
+public class DeadLocalsTest {
+
+	@Test
+	public void testLoops() {
+		String packageName = "ch.ethz.rse.integration.tests.Loop_Bound_Test";
+		ClassToVerify c = new VerificationTestCase(packageName, VerificationProperty.NON_NEGATIVE, true)
+				.getTestClass();
+		SootClass sc = SootHelper.loadClass(c);
+		SootMethod method = sc.getMethods().get(1);
+
+		UnitGraph g = SootHelper.getUnitGraph(method);
+		Map<Unit, String[]> dead = NumericalAnalysis.getDeadLocals(g);
+		Assertions.assertFalse(dead.isEmpty());
+
+		SimpleLiveLocals live = new SimpleLiveLocals(g);
+		for (Map.Entry<Unit, String[]> e : dead.entrySet()) {
+			for (Local l : live.getLiveLocalsAfter(e.getKey())) {
+				Assertions.assertFalse(Arrays.asList(e.getValue()).contains(l.getName()), l + " after " + e.getKey());
+			}
+		}
+
+		// loop counters are kept on the back edges, where they are still read
+		Assertions.assertFalse(SootHelper.getWeakTopologicalOrder(method).getComponentHeads().isEmpty());
+		for (Unit head : SootHelper.getWeakTopologicalOrder(method).getComponentHeads()) {
+			List<Local> liveAtHead = live.getLiveLocalsBefore(head);
+			for (Unit pred : g.getPredsOf(head)) {
+				String[] forgotten = dead.get(pred);
+				if (forgotten == null) {
+					continue;
+				}
+				for (Local l : liveAtHead) {
+					Assertions.assertFalse(Arrays.asList(forgotten).contains(l.getName()), l + " before " + head);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import apron.Environment;
+import apron.Manager;
+import apron.Polka;
+
+/**
+ * Checks the accounting of live abstract elements
+ */
+public class NativeMemoryTest {
+
+	Manager man = new Polka(true);
+
+	VariablePacking packing = new VariablePacking(new Environment(new String[] { "x" }, new String[0]));
+
+	@Test
+	public void testDisabled() {
+		long live = NativeMemory.getLiveElements();
+		NumericalStateWrapper s = NumericalStateWrapper.top(man, packing);
+		Assertions.assertFalse(NativeMemory.isEnabled());
+		// finalization may only decrease the count
+		Assertions.assertTrue(NativeMemory.getLiveElements() <= live, s.toString());
+	}
+
+	@Test
+	public void testLiveElements() {
+		System.setProperty("NATIVE_MEMORY_ACCOUNTING", "true");
+		try {
+			NumericalStateWrapper s = NumericalStateWrapper.top(man, packing);
+			NumericalStateWrapper t = s.copy();
+			// s and t are reachable, hence not finalized
+			Assertions.assertTrue(NativeMemory.getLiveElements() >= 2, s + " " + t);
+			Assertions.assertTrue(NativeMemory.getPeakElements() >= NativeMemory.getLiveElements());
+		} finally {
+			System.clearProperty("NATIVE_MEMORY_ACCOUNTING");
+		}
+	}
+
+	/**
+	 * a collection is forced once more elements than the budget are live
+	 */
+	@Test
+	public void testBudget() {
+		System.setProperty("NATIVE_MEMORY_ACCOUNTING", "true");
+		System.setProperty("NATIVE_ELEMENT_BUDGET", "1");
+		try {
+			long collections = NativeMemory.getCollections();
+			List<NumericalStateWrapper> states = new ArrayList<NumericalStateWrapper>();
+			for (int i = 0; i < 1000 && NativeMemory.getCollections() == collections; i++) {
+				states.add(NumericalStateWrapper.top(man, packing));
+			}
+			Assertions.assertTrue(NativeMemory.getCollections() > collections, states.size() + " states");
+		} finally {
+			System.clearProperty("NATIVE_MEMORY_ACCOUNTING");
+			System.clearProperty("NATIVE_ELEMENT_BUDGET");
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package ch.ethz.rse.numerical;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import apron.Abstract1;
+import apron.ApronException;
+import apron.Interval;
+import apron.Manager;
+import apron.Polka;
+
+/**
+ * Checks states split into several packs of variables, and sharing their
+ * elements between copies
+ */
+public class NumericalStateWrapperTest {
+
+	Manager man = new Polka(true);
+
+	/**
+	 * packs {x} and {y}
+	 */
+	VariablePacking packing = new VariablePacking(
+			Arrays.<List<String>>asList(Collections.singletonList("x"), Collections.singletonList("y")));
+
+	/**
+	 * 
+	 * @return state with x in [xInf, xSup] and y in [yInf, ySup]
+	 */
+	private NumericalStateWrapper state(int xInf, int xSup, int yInf, int ySup) throws ApronException {
+		Abstract1[] elems = {
+				new Abstract1(man, packing.getEnvironment(0), new String[] { "x" },
+						new Interval[] { new Interval(xInf, xSup) }),
+				new Abstract1(man, packing.getEnvironment(1), new String[] { "y" },
+						new Interval[] { new Interval(yInf, ySup) }) };
+		return new NumericalStateWrapper(man, packing, elems);
+	}
+
+	@Test
+	public void testPacks() {
+		Assertions.assertEquals(2, packing.size());
+		Assertions.assertEquals(0, packing.getPack("x"));
+		Assertions.assertEquals(1, packing.getPack("y"));
+	}
+
+	/**
+	 * states are equal iff all their packs are
+	 */
+	@Test
+	public void testEquals() throws ApronException {
+		NumericalStateWrapper s = this.state(1, 2, 0, 0);
+		Assertions.assertTrue(s.equals(this.state(1, 2, 0, 0)));
+		Assertions.assertFalse(s.equals(this.state(1, 2, 0, 1)));
+		Assertions.assertFalse(s.equals(this.state(1, 3, 0, 0)));
+	}
+
+	/**
+	 * a bottom pack makes the whole state unreachable
+	 */
+	@Test
+	public void testBottomPack() throws ApronException {
+		NumericalStateWrapper s = this.state(1, 2, 0, 0);
+		Assertions.assertFalse(s.isBottom());
+		s.set("y", new Abstract1(man, packing.getEnvironment(1), true));
+		Assertions.assertTrue(s.isBottom());
+		Assertions.assertTrue(s.equals(NumericalStateWrapper.bottom(man, packing)));
+	}
+
+	/**
+	 * modifying a copy leaves the original unchanged, and only duplicates the
+	 * modified pack
+	 */
+	@Test
+	public void testCopyOnWrite() throws ApronException {
+		NumericalStateWrapper s = this.state(1, 2, 0, 0);
+		NumericalStateWrapper t = NumericalStateWrapper.bottom(man, packing);
+		s.copyInto(t);
+		Assertions.assertSame(s.get("x"), t.get("x"));
+
+		t.forget(new String[] { "x" });
+		Assertions.assertTrue(s.equals(this.state(1, 2, 0, 0)));
+		Assertions.assertFalse(s.equals(t));
+		Assertions.assertNotSame(s.get("x"), t.get("x"));
+		Assertions.assertSame(s.get("y"), t.get("y"));
+
+		// the original does not modify the shared element in place either
+		s.forget(new String[] { "y" });
+		Assertions.assertTrue(t.get("y").isEqual(man, this.state(1, 2, 0, 0).get("y")));
+	}
+
+	/**
+	 * a state set to another one is isolated from it in both directions
+	 */
+	@Test
+	public void testSet() throws ApronException {
+		NumericalStateWrapper s = this.state(1, 2, 0, 0);
+		NumericalStateWrapper t = NumericalStateWrapper.top(man, packing);
+		t.set(s);
+		Assertions.assertTrue(t.equals(s));
+
+		s.modify("x").forget(man, new String[] { "x" }, false);
+		Assertions.assertTrue(t.equals(this.state(1, 2, 0, 0)));
+		t.modify("y").forget(man, new String[] { "y" }, false);
+		Assertions.assertTrue(s.get("y").isEqual(man, this.state(1, 2, 0, 0).get("y")));
+	}
+
+}
@@ -0,0 +1,61 @@
+package ch.ethz.rse.numerical;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import soot.Body;
+import soot.Modifier;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.toolkits.graph.BriefUnitGraph;
+
+/**
+ * Checks the kinds of the edges from the predecessors of each unit
+ */
+public class UnitNumberingTest {
+
+	/**
+	 * 
+	 * @param numbering
+	 * @param number    number of a unit
+	 * @param pred      number of a predecessor of the unit
+	 * @return kinds of the edges from pred to the unit
+	 */
+	private int getEdges(UnitNumbering numbering, int number, int pred) {
+		int ret = 0;
+		int[] preds = numbering.getPreds(number);
+		for (int i = 0; i < preds.length; i++) {
+			if (preds[i] == pred) {
+				ret |= numbering.getPredEdges(number)[i];
+			}
+		}
+		return ret;
+	}
+
+	@Test
+	public void testPredEdges() {
+		SootMethod method = new SootMethod("m1", Collections.<Type>emptyList(), VoidType.v(), Modifier.STATIC);
+		Body body = Jimple.v().newBody(method);
+		method.setActiveBody(body);
+		Unit first = Jimple.v().newNopStmt();
+		Unit last = Jimple.v().newNopStmt();
+		Unit loop = Jimple.v().newIfStmt(Jimple.v().newEqExpr(IntConstant.v(0), IntConstant.v(0)), first);
+		// 0: nop, 1: if 0 == 0 goto 2, 2: if 0 == 0 goto 0, 3: nop
+		body.getUnits().add(first);
+		body.getUnits().add(Jimple.v().newIfStmt(Jimple.v().newEqExpr(IntConstant.v(0), IntConstant.v(0)), loop));
+		body.getUnits().add(loop);
+		body.getUnits().add(last);
+
+		UnitNumbering numbering = new UnitNumbering(new BriefUnitGraph(body));
+		Assertions.assertEquals(UnitNumbering.BRANCH, this.getEdges(numbering, 0, 2));
+		Assertions.assertEquals(UnitNumbering.FALL_THROUGH | UnitNumbering.BRANCH, this.getEdges(numbering, 2, 1));
+		Assertions.assertEquals(UnitNumbering.FALL_THROUGH, this.getEdges(numbering, 3, 2));
+		Assertions.assertEquals(UnitNumbering.FALL_THROUGH, this.getEdges(numbering, 1, 0));
+	}
+}
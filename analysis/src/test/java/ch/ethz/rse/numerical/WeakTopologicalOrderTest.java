@@ -0,0 +1,92 @@
+package ch.ethz.rse.numerical;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.Body;
+import soot.Modifier;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.toolkits.annotation.logic.Loop;
+import soot.toolkits.graph.BriefUnitGraph;
+import soot.toolkits.graph.LoopNestTree;
+import soot.toolkits.graph.UnitGraph;
+
+/**
+ * Checks the weak topological order of methods with nested loops
+ */
+public class WeakTopologicalOrderTest {
+
+	private void collect(List<WeakTopologicalOrder.Element> elements, List<Unit> units) {
+		for (WeakTopologicalOrder.Element e : elements) {
+			units.add(e.getHead());
+			if (e.isComponent()) {
+				this.collect(e.getBody(), units);
+			}
+		}
+	}
+
+	@Test
+	public void testNestedLoops() {
+		String packageName = "ch.ethz.rse.benchmarks.Large_Nested_Loops";
+		ClassToVerify c = new VerificationTestCase(packageName, VerificationProperty.NON_NEGATIVE, true)
+				.getTestClass();
+		SootClass sc = SootHelper.loadClass(c);
+
+		for (SootMethod method : sc.getMethods()) {
+			UnitGraph g = SootHelper.getUnitGraph(method);
+			WeakTopologicalOrder wto = new WeakTopologicalOrder(g);
+
+			// every unit appears exactly once
+			List<Unit> units = new ArrayList<Unit>();
+			this.collect(wto.getElements(), units);
+			Assertions.assertEquals(g.size(), units.size());
+			Assertions.assertEquals(g.size(), new HashSet<Unit>(units).size());
+
+			// components are the loops
+			Set<Unit> loopHeads = new HashSet<Unit>();
+			for (Loop l : new LoopNestTree(g.getBody())) {
+				loopHeads.add(l.getHead());
+			}
+			Assertions.assertEquals(loopHeads, wto.getComponentHeads());
+		}
+	}
+
+	/**
+	 * the order of a long method does not overflow the stack
+	 */
+	@Test
+	public void testLongMethod() {
+		SootMethod method = new SootMethod("m1", Collections.<Type>emptyList(), VoidType.v(), Modifier.STATIC);
+		Body body = Jimple.v().newBody(method);
+		method.setActiveBody(body);
+		int size = 100000;
+		Unit first = Jimple.v().newNopStmt();
+		body.getUnits().add(first);
+		for (int i = 1; i < size - 1; i++) {
+			body.getUnits().add(Jimple.v().newNopStmt());
+		}
+		// a loop over the whole method
+		body.getUnits().add(Jimple.v().newGotoStmt(first));
+
+		WeakTopologicalOrder wto = new WeakTopologicalOrder(new BriefUnitGraph(body));
+		List<Unit> units = new ArrayList<Unit>();
+		this.collect(wto.getElements(), units);
+		Assertions.assertEquals(size, units.size());
+		Assertions.assertEquals(Collections.singleton(first), wto.getComponentHeads());
+	}
+}
@@ -0,0 +1,59 @@
+package ch.ethz.rse.pointer;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.utils.Constants;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.Local;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+import soot.jimple.spark.pag.Node;
+
+/**
+ * Checks that node numbers streamed into a bit set match the collected nodes
+ */
+public class PointsToAnalysisWrapperTest {
+
+	@Test
+	public void testNodeNumbers() {
+		ClassToVerify c = new VerificationTestCase("ch.ethz.rse.integration.tests.Aliased_Store_Test",
+				VerificationProperty.NON_NEGATIVE, true).getTestClass();
+		SootClass sc = SootHelper.loadClassAndAnalyze(c);
+		PointsToAnalysisWrapper wrapper = new PointsToAnalysisWrapper(sc);
+
+		BitSet all = new BitSet();
+		BitSet numbers = new BitSet();
+		int stores = 0;
+		for (SootMethod method : sc.getMethods()) {
+			for (Local local : method.retrieveActiveBody().getLocals()) {
+				if (!local.getType().toString().equals(Constants.StoreClassName)) {
+					continue;
+				}
+				stores++;
+				BitSet expected = new BitSet();
+				for (Node n : wrapper.getNodes(local)) {
+					expected.set(n.getNumber());
+				}
+				// the bit set is reused without allocating
+				numbers.clear();
+				wrapper.getNodeNumbers(local, numbers);
+				Assertions.assertEquals(expected, numbers, local.toString());
+
+				// numbers are added to those already set
+				wrapper.getNodeNumbers(local, all);
+				expected.andNot(all);
+				Assertions.assertTrue(expected.isEmpty());
+			}
+		}
+		// at least one local for each of the two allocated stores
+		Assertions.assertTrue(stores >= 2);
+		Assertions.assertEquals(2, all.cardinality());
+	}
+
+}
@@ -0,0 +1,103 @@
+package ch.ethz.rse.pointer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.Local;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+
+/**
+ * Checks that points-to results restored from a {@link PointsToSummary} match
+ * those of SPARK
+ */
+public class PointsToInitializerTest {
+
+	private SootClass loadExample() {
+		ClassToVerify c = new VerificationTestCase("ch.ethz.rse.pointer.Store_Parameter",
+				VerificationProperty.NON_NEGATIVE, true).getTestClass();
+		return SootHelper.loadClassAndAnalyze(c);
+	}
+
+	/**
+	 * 
+	 * @param summary summary to copy
+	 * @return summary after writing and reading it, as done by
+	 *         {@link PointsToCache}
+	 */
+	private static PointsToSummary copy(PointsToSummary summary) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(summary);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (PointsToSummary) in.readObject();
+		}
+	}
+
+	/**
+	 * 
+	 * @param stores initializers
+	 * @return the statement and sizes of each of stores
+	 */
+	private static List<Object> describe(List<StoreInitializer> stores) {
+		List<Object> ret = new ArrayList<Object>();
+		for (StoreInitializer store : stores) {
+			ret.add(store.getStatement());
+			ret.add(store.trolley_size);
+			ret.add(store.reserve_size);
+		}
+		return ret;
+	}
+
+	/**
+	 * every local of every analyzed method points to the same stores, including
+	 * a store passed as a parameter
+	 */
+	@Test
+	public void testRestoreSummary() throws IOException, ClassNotFoundException {
+		SootClass sc = this.loadExample();
+		PointsToInitializer fresh = new PointsToInitializer(sc);
+		PointsToInitializer restored = new PointsToInitializer(sc, copy(fresh.summarize()));
+
+		boolean parameter = false;
+		for (SootMethod method : sc.getMethods()) {
+			if (method.getName().contains("<init>")) {
+				continue;
+			}
+			for (Local local : method.retrieveActiveBody().getLocals()) {
+				List<Object> expected = describe(fresh.pointsTo(local));
+				Assertions.assertEquals(expected, describe(restored.pointsTo(local)), local + " in " + method);
+				if (method.getName().equals("deliver") && !expected.isEmpty()) {
+					parameter = true;
+				}
+			}
+		}
+		Assertions.assertTrue(parameter);
+	}
+
+	/**
+	 * a summary missing locals is rejected, so that SPARK runs instead
+	 */
+	@Test
+	public void testRejectIncompleteSummary() {
+		SootClass sc = this.loadExample();
+		PointsToSummary summary = new PointsToInitializer(sc).summarize();
+		summary.pointsTo.remove("void deliver(ch.ethz.rse.Store,int)");
+
+		Assertions.assertNull(PointsToCache.restore(sc, summary));
+	}
+
+}
@@ -0,0 +1,101 @@
+package ch.ethz.rse.pointer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.testing.VerificationTestCase;
+import ch.ethz.rse.verify.ClassToVerify;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.internal.JInvokeStmt;
+
+/**
+ * Checks the stores indexed for each statement against the points-to sets
+ */
+public class StoreIndexTest {
+
+	/**
+	 * 
+	 * @param packageName example class
+	 * @param name        name of a method of the example
+	 * @return the method, after loading the example and running SPARK
+	 */
+	private static SootMethod loadMethod(String packageName, String name) {
+		ClassToVerify c = new VerificationTestCase(packageName, VerificationProperty.NON_NEGATIVE, true)
+				.getTestClass();
+		SootClass sc = SootHelper.loadClassAndAnalyze(c);
+		for (SootMethod method : sc.getMethods()) {
+			if (method.getName().equals(name)) {
+				return method;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	/**
+	 * 
+	 * @param method method with a body
+	 * @param name   name of the invoked method
+	 * @return all calls of name in method
+	 */
+	private static List<Unit> getCalls(SootMethod method, String name) {
+		List<Unit> ret = new ArrayList<Unit>();
+		for (Unit u : method.retrieveActiveBody().getUnits()) {
+			if (u instanceof JInvokeStmt && ((JInvokeStmt) u).getInvokeExpr().getMethodRef().getName().equals(name)) {
+				ret.add(u);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * each call may deliver from both aliased stores
+	 */
+	@Test
+	public void testAliasedReceivers() {
+		SootMethod method = loadMethod("ch.ethz.rse.integration.tests.Aliased_Store_Test", "m1");
+		PointsToInitializer pointsTo = new PointsToInitializer(method.getDeclaringClass());
+		StoreIndex index = pointsTo.getStoreIndex(method);
+
+		List<Unit> inits = getCalls(method, "<init>");
+		Assertions.assertEquals(2, inits.size());
+		Set<StoreInitializer> stores = new HashSet<StoreInitializer>();
+		for (Unit init : inits) {
+			StoreInitializer store = index.getInitializer(init);
+			Assertions.assertSame(init, store.getStatement());
+			stores.add(store);
+		}
+		Assertions.assertEquals(new HashSet<StoreInitializer>(pointsTo.getInitializers(method)), stores);
+
+		List<Unit> calls = getCalls(method, "get_delivery");
+		Assertions.assertEquals(2, calls.size());
+		for (Unit call : calls) {
+			Assertions.assertEquals(stores, new HashSet<StoreInitializer>(index.getReceivers(call)));
+			Assertions.assertEquals(2, index.getReceiverLabels(call).length);
+			Assertions.assertNull(index.getInitializer(call));
+		}
+	}
+
+	/**
+	 * stores constructed by another method are not tracked
+	 */
+	@Test
+	public void testParameterReceiver() {
+		SootMethod method = loadMethod("ch.ethz.rse.pointer.Store_Parameter", "deliver");
+		StoreIndex index = new PointsToInitializer(method.getDeclaringClass()).getStoreIndex(method);
+
+		List<Unit> calls = getCalls(method, "get_delivery");
+		Assertions.assertEquals(1, calls.size());
+		Assertions.assertTrue(index.getReceivers(calls.get(0)).isEmpty());
+		Assertions.assertEquals(0, index.getReceiverLabels(calls.get(0)).length);
+	}
+
+}
@@ -0,0 +1,18 @@
+package ch.ethz.rse.pointer;
+
+import ch.ethz.rse.Store;
+
+/**
+ * Input of {@link PointsToInitializerTest}: a store created in one method and
+ * used in another
+ */
+public class Store_Parameter {
+    public static void m1(int j) {
+        Store s = new Store(2, 10);
+        deliver(s, j);
+    }
+
+    public static void deliver(Store s, int j) {
+        s.get_delivery(1);
+    }
+}
@@ -0,0 +1,29 @@
+package ch.ethz.rse.testing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+
+/**
+ * Checks the expected results of {@link ProgramGenerator}
+ */
+public class ProgramGeneratorTest {
+
+	/**
+	 * 2 stores, deliveries of 0 (outside loops), 1 (3 times) and 2 (9 times)
+	 * sum up to 21 per store
+	 */
+	@Test
+	public void testReserve() {
+		ProgramGenerator fits = new ProgramGenerator("Gen_Test", 2, 7, 2, 3, 3, 10, 21);
+		Assertions.assertTrue(fits.isSafe(VerificationProperty.FITS_IN_RESERVE));
+		Assertions.assertTrue(fits.generate().contains("// FITS_IN_RESERVE SAFE"));
+
+		ProgramGenerator exceeds = new ProgramGenerator("Gen_Test", 2, 7, 2, 3, 3, 10, 20);
+		Assertions.assertFalse(exceeds.isSafe(VerificationProperty.FITS_IN_RESERVE));
+		Assertions.assertTrue(exceeds.generate().contains("// FITS_IN_RESERVE UNSAFE"));
+		Assertions.assertTrue(exceeds.generate().contains("// NON_NEGATIVE SAFE"));
+	}
+
+}
@@ -0,0 +1,63 @@
+package ch.ethz.rse.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.StoreInitializer;
+import ch.ethz.rse.testing.VerificationTestCase;
+import soot.Local;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+
+/**
+ * Checks that fingerprints are stable, and change with the stores a method
+ * may use even if its body does not
+ */
+public class MethodFingerprintTest {
+
+	/**
+	 * Points-to analysis reporting stores with a larger trolley, as if the
+	 * constructor call in another method had changed
+	 */
+	private static class ResizedPointsTo extends PointsToInitializer {
+
+		ResizedPointsTo(SootClass c) {
+			super(c);
+		}
+
+		@Override
+		public synchronized List<StoreInitializer> pointsTo(Local base) {
+			List<StoreInitializer> ret = new ArrayList<StoreInitializer>();
+			for (StoreInitializer store : super.pointsTo(base)) {
+				ret.add(new StoreInitializer(store.getStatement(), store.getNumber(), store.trolley_size + 1,
+						store.reserve_size));
+			}
+			return ret;
+		}
+	}
+
+	@Test
+	public void testInitializerArguments() {
+		ClassToVerify c = new VerificationTestCase("ch.ethz.rse.pointer.Store_Parameter",
+				VerificationProperty.NON_NEGATIVE, true).getTestClass();
+		SootClass sc = SootHelper.loadClassAndAnalyze(c);
+		SootMethod deliver = null;
+		for (SootMethod method : sc.getMethods()) {
+			if (method.getName().equals("deliver")) {
+				deliver = method;
+			}
+		}
+
+		String fingerprint = MethodFingerprint.compute(deliver, new PointsToInitializer(sc));
+		Assertions.assertEquals(fingerprint, MethodFingerprint.compute(deliver, new PointsToInitializer(sc)));
+		// deliver does not construct the store it uses
+		Assertions.assertNotEquals(fingerprint, MethodFingerprint.compute(deliver, new ResizedPointsTo(sc)));
+	}
+
+}
@@ -1,13 +1,17 @@
 package soot;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.pointer.StoreInitializer;
 import ch.ethz.rse.testing.VerificationTestCase;
 import ch.ethz.rse.verify.ClassToVerify;
+import soot.toolkits.graph.UnitGraph;
 
 /**
  * Sanity check on classes loaded by soot
@@ -48,4 +52,114 @@ public class SootHelperTest {
 		Assertions.assertNotNull(a);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * another class is added to the scene instead of resetting it, and
+	 * points-to analysis re-runs when switching back to the first class
+	 */
+	@Test
+	public void testAddToScene() {
+		ClassToVerify c = this.getExampleClassToVerify();
+		ClassToVerify other = new VerificationTestCase("ch.ethz.rse.integration.tests.Basic_Test_Unsafe",
+				VerificationProperty.NON_NEGATIVE, false).getTestClass();
+
+		SootHelper.loadClassAndAnalyze(c);
+		G scene = G.v();
+		SootClass sc = SootHelper.loadClassAndAnalyze(other);
+
+		Assertions.assertSame(scene, G.v());
+		Assertions.assertEquals(other.getPackageName(), sc.getName());
+		Assertions.assertFalse(SootHelper.isLoadedAndAnalyzed(c));
+		Assertions.assertTrue(SootHelper.isLoadedAndAnalyzed(other));
+		Assertions.assertNotNull(Scene.v().getPointsToAnalysis());
+
+		SootHelper.loadClassAndAnalyze(c);
+		Assertions.assertSame(scene, G.v());
+		Assertions.assertTrue(SootHelper.isLoadedAndAnalyzed(c));
+		Assertions.assertFalse(SootHelper.isLoadedAndAnalyzed(other));
+	}
+
+	/**
+	 * the scene is reset once it holds SCENE_CLASS_LIMIT classes
+	 */
+	@Test
+	public void testSceneClassLimit() {
+		ClassToVerify c = this.getExampleClassToVerify();
+		ClassToVerify other = new VerificationTestCase("ch.ethz.rse.integration.tests.Basic_Test_Unsafe",
+				VerificationProperty.NON_NEGATIVE, false).getTestClass();
+
+		System.setProperty("SCENE_CLASS_LIMIT", "1");
+		try {
+			// start from a fresh scene
+			SootHelper.loadClass(c);
+			SootHelper.loadClassAndAnalyze(c);
+			G scene = G.v();
+			SootHelper.loadClassAndAnalyze(other);
+			Assertions.assertNotSame(scene, G.v());
+			Assertions.assertTrue(SootHelper.isLoadedAndAnalyzed(other));
+		} finally {
+			System.clearProperty("SCENE_CLASS_LIMIT");
+		}
+	}
+
+	@Test
+	public void testGraphCache() {
+		ClassToVerify c = this.getExampleClassToVerify();
+		SootClass sc = SootHelper.loadClass(c);
+		SootMethod method = sc.getMethods().get(1);
+
+		UnitGraph g = SootHelper.getUnitGraph(method);
+		Assertions.assertSame(g, SootHelper.getUnitGraph(method));
+		Assertions.assertEquals(g.size(), SootHelper.getUnitNumbering(method).size());
+		Assertions.assertSame(SootHelper.getWeakTopologicalOrder(method), SootHelper.getWeakTopologicalOrder(method));
+
+		SootHelper.invalidateGraphs();
+		Assertions.assertNotSame(g, SootHelper.getUnitGraph(method));
+	}
+
+	/**
+	 * 
+	 * @param c    class to analyze
+	 * @param lean value of LEAN_POINTS_TO
+	 * @return the statement and sizes of the stores each local of each method
+	 *         of c may point to
+	 */
+	private static List<String> describePointsTo(ClassToVerify c, boolean lean) {
+		System.setProperty("LEAN_POINTS_TO", Boolean.toString(lean));
+		try {
+			// start from a fresh scene
+			SootHelper.loadClass(c);
+			SootClass sc = SootHelper.loadClassAndAnalyze(c);
+			PointsToInitializer pointsTo = new PointsToInitializer(sc);
+			List<String> ret = new ArrayList<String>();
+			for (SootMethod method : sc.getMethods()) {
+				if (method.getName().contains("<init>")) {
+					continue;
+				}
+				for (Local local : method.retrieveActiveBody().getLocals()) {
+					for (StoreInitializer store : pointsTo.pointsTo(local)) {
+						ret.add(method.getName() + " " + local.getName() + " -> " + store.getStatement() + " "
+								+ store.trolley_size + " " + store.reserve_size);
+					}
+				}
+			}
+			return ret;
+		} finally {
+			System.clearProperty("LEAN_POINTS_TO");
+		}
+	}
+
+	/**
+	 * running only the cg pack yields the same points-to sets as running all
+	 * packs
+	 */
+	@Test
+	public void testLeanPointsTo() {
+		ClassToVerify c = new VerificationTestCase("ch.ethz.rse.integration.tests.Aliased_Store_Test",
+				VerificationProperty.NON_NEGATIVE, true).getTestClass();
+
+		List<String> expected = describePointsTo(c, false);
+		Assertions.assertFalse(expected.isEmpty());
+		Assertions.assertEquals(expected, describePointsTo(c, true));
+	}
+
+}
@@ -0,0 +1,126 @@
+package ch.ethz.rse.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.ethz.rse.VerificationProperty;
+import ch.ethz.rse.numerical.NumericalAnalysis;
+import ch.ethz.rse.pointer.PointsToInitializer;
+import ch.ethz.rse.utils.Configuration;
+import ch.ethz.rse.verify.ClassToVerify;
+import ch.ethz.rse.verify.EnvironmentGenerator;
+import soot.SootClass;
+import soot.SootHelper;
+import soot.SootMethod;
+
+/**
+ * Measures the phases of verifying a class separately: loading it into Soot,
+ * collecting Store initializers from the points-to analysis, generating the
+ * environments of its methods and running the numerical fixpoint.
+ *
+ * Inputs are the compiled test classes of the analysis: the integration tests
+ * and the synthetic inputs in <code>ch.ethz.rse.benchmarks</code>. Soot keeps
+ * its scene in global state, so every benchmark runs in its own fork.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1G" })
+@State(Scope.Benchmark)
+public class AnalysisBenchmark {
+
+	/**
+	 * Fully qualified name of the input class
+	 */
+	@Param({ "ch.ethz.rse.integration.tests.Basic_Test_Safe", "ch.ethz.rse.integration.tests.Basic_Test_Unsafe",
+			"ch.ethz.rse.integration.tests.Multiplication_Test", "ch.ethz.rse.integration.tests.My_Test",
+			"ch.ethz.rse.integration.tests.Negative_Store_Test", "ch.ethz.rse.benchmarks.Large_Straight_Line",
+			"ch.ethz.rse.benchmarks.Large_Nested_Loops" })
+	public String className;
+
+	private ClassToVerify tc;
+
+	private PointsToInitializer pointsTo;
+
+	private SootClass c;
+
+	private final List<SootMethod> methods = new LinkedList<SootMethod>();
+
+	private final Set<VerificationProperty> properties = EnumSet.allOf(VerificationProperty.class);
+
+	/**
+	 * 
+	 * @return directory holding the compiled inputs, configurable by the system
+	 *         property <code>benchmark.classes</code>
+	 */
+	static File getClassPath() {
+		String dir = System.getProperty("benchmark.classes");
+		if (dir == null) {
+			dir = Configuration.props.getBasedir() + "/target/test-classes";
+		}
+		return new File(dir);
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws FileNotFoundException {
+		this.tc = new ClassToVerify(AnalysisBenchmark.getClassPath(), this.className);
+		this.c = SootHelper.loadClassAndAnalyze(this.tc);
+		this.pointsTo = new PointsToInitializer(this.c);
+		for (SootMethod method : this.c.getMethods()) {
+			if (method.getName().contains("<init>")) {
+				continue;
+			}
+			this.methods.add(method);
+		}
+	}
+
+	/**
+	 * Resets Soot and loads the class with all related classes
+	 */
+	@Benchmark
+	public SootClass loadClass() {
+		return SootHelper.loadClass(this.tc);
+	}
+
+	@Benchmark
+	public PointsToInitializer pointsToInitializer() {
+		return new PointsToInitializer(this.c);
+	}
+
+	@Benchmark
+	public void environmentGenerator(Blackhole bh) {
+		for (SootMethod method : this.methods) {
+			bh.consume(new EnvironmentGenerator(method, this.pointsTo).getEnvironment());
+		}
+	}
+
+	/**
+	 * Runs the fixpoint for all methods of the class
+	 */
+	@Benchmark
+	public void numericalAnalysis(Blackhole bh) {
+		for (SootMethod method : this.methods) {
+			bh.consume(new NumericalAnalysis(method, this.properties, this.pointsTo));
+		}
+	}
+}